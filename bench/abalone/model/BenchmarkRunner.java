@@ -0,0 +1,177 @@
+package abalone.model;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs benchmarks in timed iterations on the calling thread. Every benchmark
+ * is warmed up first, so the measured iterations run compiled code. For every
+ * benchmark the throughput, the average time of an operation and the memory
+ * the operations allocate are printed.
+ *
+ * <p>
+ * The allocated memory is read from the thread bean of the JVM. It is only
+ * printed if the JVM supports it and does not include memory allocated by
+ * other threads.
+ *
+ * <p>
+ * This runner is a quick check without libraries, not a gate like the JMH
+ * benchmarks in the {@code jmh} folder: it does not fork a JVM, it protects
+ * the operations from dead code elimination only by adding their results to
+ * a sink and it misses the memory allocated by the threads of a pool.
+ */
+final class BenchmarkRunner {
+    /**
+     * The number of iterations before the measurement starts.
+     */
+    private final int warmupIterations;
+
+    /**
+     * The number of measured iterations.
+     */
+    private final int iterations;
+
+    /**
+     * The duration of an iteration in nanoseconds.
+     */
+    private final long iterationNanos;
+
+    /**
+     * The thread bean of the JVM if it measures allocated memory or
+     * {@code null} otherwise.
+     */
+    private final com.sun.management.ThreadMXBean allocations;
+
+    /**
+     * The sum of all results of the operations. It is printed at the end, so
+     * the JIT compiler cannot drop the operations.
+     */
+    private long sink;
+
+    /**
+     * Creates a new runner.
+     *
+     * @param warmupIterations The number of iterations before the measurement
+     *                         starts.
+     * @param iterations The number of measured iterations.
+     * @param iterationMillis The duration of an iteration in milliseconds.
+     * @throws IllegalArgumentException If a number is not positive.
+     */
+    BenchmarkRunner(int warmupIterations, int iterations,
+                    long iterationMillis) {
+        if (warmupIterations < 0 || iterations < 1 || iterationMillis < 1) {
+            throw new IllegalArgumentException("Iterations and duration must "
+                    + "be positive!");
+        } else {
+            this.warmupIterations = warmupIterations;
+            this.iterations = iterations;
+            iterationNanos = iterationMillis * 1000000;
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+            if (threads instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) threads)
+                    .isThreadAllocatedMemorySupported()) {
+                allocations = (com.sun.management.ThreadMXBean) threads;
+                allocations.setThreadAllocatedMemoryEnabled(true);
+            } else {
+                allocations = null;
+            }
+        }
+    }
+
+    /**
+     * Print the header of the table of results.
+     */
+    void printHeader() {
+        System.out.println(String.format(Locale.ROOT,
+                "%-32s %14s %7s %14s %12s %10s", "Benchmark", "ops/s",
+                "error", "ns/op", "B/op", "MB/s"));
+    }
+
+    /**
+     * Run a benchmark and print its result.
+     *
+     * @param name The name of the benchmark.
+     * @param operation The benchmarked operation. Its result is consumed, so
+     *                  it cannot be optimized away.
+     */
+    void run(String name, LongSupplier operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            runIteration(operation);
+        }
+        double[] throughputs = new double[iterations];
+        long operations = 0;
+        long nanos = 0;
+        long bytes = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            long allocatedBefore = getAllocatedBytes();
+            long start = System.nanoTime();
+            long count = runIteration(operation);
+            long elapsed = System.nanoTime() - start;
+            bytes += getAllocatedBytes() - allocatedBefore;
+            operations += count;
+            nanos += elapsed;
+            throughputs[i] = count * 1e9 / elapsed;
+        }
+        double mean = 0;
+
+        for (double throughput : throughputs) {
+            mean += throughput / iterations;
+        }
+        double variance = 0;
+
+        for (double throughput : throughputs) {
+            variance += (throughput - mean) * (throughput - mean)
+                    / Math.max(1, iterations - 1);
+        }
+        String allocated = allocations == null ? String.format(Locale.ROOT,
+                "%12s %10s", "n/a", "n/a") : String.format(Locale.ROOT,
+                "%12.1f %10.1f", (double) bytes / operations,
+                bytes * 1e9 / nanos / (1 << 20));
+        System.out.println(String.format(Locale.ROOT,
+                "%-32s %14.1f %6.1f%% %14.1f %s", name, mean,
+                100 * Math.sqrt(variance) / mean, (double) nanos / operations,
+                allocated));
+    }
+
+    /**
+     * Get the sum of the results of all operations.
+     *
+     * @return The sum of the results.
+     */
+    long getSink() {
+        return sink;
+    }
+
+    /**
+     * Run the operation repeatedly for the duration of an iteration. It runs
+     * at least once.
+     *
+     * @param operation The operation.
+     * @return The number of times the operation ran.
+     */
+    private long runIteration(LongSupplier operation) {
+        long end = System.nanoTime() + iterationNanos;
+        long count = 0;
+
+        do {
+            sink += operation.getAsLong();
+            count++;
+        } while (System.nanoTime() < end);
+        return count;
+    }
+
+    /**
+     * Get the memory the current thread has allocated so far.
+     *
+     * @return The allocated bytes or 0 if they cannot be measured.
+     */
+    private long getAllocatedBytes() {
+        return allocations == null ? 0
+                : allocations.getThreadAllocatedBytes(
+                Thread.currentThread().getId());
+    }
+}
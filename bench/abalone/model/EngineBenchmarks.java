@@ -0,0 +1,307 @@
+package abalone.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Benchmarks of the hot paths of the engine. The positions are captured from
+ * games of the machine against a human who plays seeded random moves, so
+ * every run measures the same positions.
+ *
+ * <p>
+ * For every board type and size the benchmarks measure the move generation,
+ * the validation and execution of human moves, making and undoing the moves
+ * of the search, copying a board and the machine move of every level. The
+ * machine searches without a transposition table, so every search of a
+ * position does the same work.
+ *
+ * <p>
+ * Usage: {@code java abalone.model.EngineBenchmarks [filter]}, where only
+ * the benchmarks whose name contains the filter are run, e.g.
+ * {@code abalone/9/} or {@code machineMove}.
+ */
+public final class EngineBenchmarks {
+    /**
+     * The board sizes which are benchmarked.
+     */
+    private static final int[] SIZES = {7, 9, 11, 15};
+
+    /**
+     * The highest level of the machine which is benchmarked.
+     */
+    private static final int MAX_LEVEL = 4;
+
+    /**
+     * The level of the machine in the games the positions are captured from.
+     */
+    private static final int GAME_LEVEL = 2;
+
+    /**
+     * The number of positions of each player which are captured.
+     */
+    private static final int POSITIONS = 8;
+
+    /**
+     * The number of moves of a game before positions are captured.
+     */
+    private static final int OPENING_MOVES = 6;
+
+    /**
+     * The number of moves after which a game is given up.
+     */
+    private static final int MAX_GAME_MOVES = 200;
+
+    /**
+     * The seed of the random moves of the human.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * The move vectors of the human moves which are tried.
+     */
+    private static final int[][] MOVE_VECTORS
+            = {{0, 1}, {1, 1}, {1, 0}, {0, -1}, {-1, -1}, {-1, 0}};
+
+    /**
+     * Cannot instantiate utility class.
+     */
+    private EngineBenchmarks() {
+    }
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args The optional filter of the benchmark names.
+     */
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        BenchmarkRunner runner = new BenchmarkRunner(3, 5, 500);
+        runner.printHeader();
+
+        for (BoardType type : BoardType.values()) {
+            for (int size : SIZES) {
+                String prefix = type.name().toLowerCase() + "/" + size + "/";
+                List<SearchBoard> humanPositions = new ArrayList<>();
+                List<SearchBoard> machinePositions = new ArrayList<>();
+                capturePositions(type, size, humanPositions, machinePositions);
+
+                for (Benchmark benchmark : createBenchmarks(humanPositions,
+                        machinePositions)) {
+                    String name = prefix + benchmark.name;
+
+                    if (name.contains(filter)) {
+                        runner.run(name, benchmark.operation);
+                    }
+                }
+            }
+        }
+        System.out.println("(sink " + runner.getSink() + ")");
+    }
+
+    /**
+     * Create the benchmarks of a board type and size.
+     *
+     * @param humanPositions The positions in which the human moves.
+     * @param machinePositions The positions in which the machine moves.
+     * @return The benchmarks.
+     */
+    private static List<Benchmark> createBenchmarks(
+            List<SearchBoard> humanPositions,
+            List<SearchBoard> machinePositions) {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        List<SearchBoard> positions = new ArrayList<>(humanPositions);
+        positions.addAll(machinePositions);
+        int[] buffer = new int[positions.get(0).getMoveCapacity()];
+        int[][] humanMoves = getHumanMoves(humanPositions);
+
+        // Every position gets its own copy to make and undo its moves.
+        List<SearchBoard> copies = new ArrayList<>();
+        List<int[]> searchMoves = new ArrayList<>();
+
+        for (int i = 0; i < positions.size(); i++) {
+            SearchBoard position = positions.get(i);
+            int count = position.getPossibleMoves(position.getNextPlayer(),
+                    buffer);
+            copies.add(position.copy());
+
+            for (int move : Arrays.copyOf(buffer, count)) {
+                searchMoves.add(new int[] {i, move});
+            }
+        }
+        int[] next = new int[1];
+
+        benchmarks.add(new Benchmark("getPossibleMoves", () -> {
+            SearchBoard position = positions.get(next[0]++ % positions.size());
+            return position.getPossibleMoves(position.getNextPlayer(), buffer);
+        }));
+        benchmarks.add(new Benchmark("move", () -> {
+            int[] move = humanMoves[next[0]++ % humanMoves.length];
+            Board board = humanPositions.get(move[0]).move(move[1], move[2],
+                    move[3], move[4]);
+            return board == null ? 0 : board.getNumberOfBalls(Color.WHITE);
+        }));
+        benchmarks.add(new Benchmark("makeUnmakeMove", () -> {
+            int[] move = searchMoves.get(next[0]++ % searchMoves.size());
+            SearchBoard copy = copies.get(move[0]);
+            copy.makeMove(move[1]);
+            long hash = copy.getHash();
+            copy.unmakeMove();
+            return hash;
+        }));
+        benchmarks.add(new Benchmark("clone", () -> positions.get(
+                next[0]++ % positions.size()).copy().getHash()));
+
+        for (int level = 1; level <= MAX_LEVEL; level++) {
+            List<SearchBoard> levelPositions = new ArrayList<>();
+
+            for (SearchBoard position : machinePositions) {
+                SearchBoard copy = position.copy();
+                copy.setTableSize(0);
+                copy.setLevel(level);
+                levelPositions.add(copy);
+            }
+            benchmarks.add(new Benchmark("machineMove/level" + level, () -> {
+                Board board = levelPositions.get(
+                        next[0]++ % levelPositions.size()).machineMove();
+                return board.getNumberOfBalls(Color.BLACK);
+            }));
+        }
+        return benchmarks;
+    }
+
+    /**
+     * Play games of the machine against seeded random moves of the human and
+     * capture the positions after the opening.
+     *
+     * @param type The board type.
+     * @param size The board size.
+     * @param humanPositions The list of positions in which the human moves.
+     * @param machinePositions The list of positions in which the machine
+     *                         moves.
+     */
+    static void capturePositions(BoardType type, int size,
+                                 List<SearchBoard> humanPositions,
+                                 List<SearchBoard> machinePositions) {
+        Random random = new Random(SEED);
+
+        while (machinePositions.size() < POSITIONS) {
+            Board board = type.create(size, Player.HUMAN, GAME_LEVEL);
+
+            for (int moves = 0; moves < MAX_GAME_MOVES && !board.isGameOver()
+                    && machinePositions.size() < POSITIONS; moves++) {
+                if (moves >= OPENING_MOVES) {
+                    if (board.getNextPlayer() == Player.HUMAN) {
+                        humanPositions.add((SearchBoard) board);
+                    } else {
+                        machinePositions.add((SearchBoard) board);
+                    }
+                }
+
+                if (board.getNextPlayer() == Player.HUMAN) {
+                    board = playRandomMove(board, random);
+                } else {
+                    board = board.machineMove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Play a random move of the human.
+     *
+     * @param board The board on which the human moves.
+     * @param random The source of the random move.
+     * @return The board after the move.
+     */
+    private static Board playRandomMove(Board board, Random random) {
+        List<int[]> moves = getCandidateMoves(board);
+        Collections.shuffle(moves, random);
+
+        for (int[] move : moves) {
+            Board next = board.move(move[0], move[1], move[2], move[3]);
+
+            if (next != null) {
+                return next;
+            }
+        }
+        throw new IllegalStateException("The human cannot move!");
+    }
+
+    /**
+     * Get all moves of the balls of the human to a neighbour slot. Some of
+     * them are not valid.
+     *
+     * @param board The board.
+     * @return The moves as arrays of the coordinates of the start and the
+     *         target.
+     */
+    private static List<int[]> getCandidateMoves(Board board) {
+        List<int[]> moves = new ArrayList<>();
+        int size = board.getSize();
+
+        for (int row = 0; row < size; row++) {
+            for (int diag = 0; diag < size; diag++) {
+                if (board.isValidPosition(row, diag)
+                        && board.getSlot(row, diag) == board.getHumanColor()) {
+                    for (int[] vector : MOVE_VECTORS) {
+                        int rowTo = row + vector[0];
+                        int diagTo = diag + vector[1];
+
+                        if (board.isValidTarget(rowTo, diagTo)) {
+                            moves.add(new int[] {row, diag, rowTo, diagTo});
+                        }
+                    }
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Get the valid and invalid moves of the human in the given positions.
+     *
+     * @param positions The positions in which the human moves.
+     * @return The moves as arrays of the index of the position and the
+     *         coordinates of the start and the target.
+     */
+    private static int[][] getHumanMoves(List<SearchBoard> positions) {
+        List<int[]> moves = new ArrayList<>();
+
+        for (int i = 0; i < positions.size(); i++) {
+            for (int[] move : getCandidateMoves(positions.get(i))) {
+                moves.add(new int[] {i, move[0], move[1], move[2], move[3]});
+            }
+        }
+        return moves.toArray(new int[0][]);
+    }
+
+    /**
+     * A benchmarked operation with its name.
+     */
+    private static final class Benchmark {
+        /**
+         * The name of the benchmark without the board type and size.
+         */
+        private final String name;
+
+        /**
+         * The benchmarked operation.
+         */
+        private final LongSupplier operation;
+
+        /**
+         * Creates a new benchmark.
+         *
+         * @param name The name of the benchmark.
+         * @param operation The benchmarked operation.
+         */
+        private Benchmark(String name, LongSupplier operation) {
+            this.name = name;
+            this.operation = operation;
+        }
+    }
+}
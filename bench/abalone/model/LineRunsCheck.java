@@ -0,0 +1,350 @@
+package abalone.model;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * Checks the index of the runs of balls against a scan of the lines. Random
+ * positions are changed by random sequences of moves which are made and
+ * undone. After some of the changes the move of every cell and direction is
+ * looked up in the index and compared with the move found by walking the
+ * line from the cell, so the index also has to catch up with changes which
+ * were made and undone between two lookups.
+ *
+ * <p>
+ * Usage: {@code java abalone.model.LineRunsCheck [options]}. The options
+ * are
+ * <ul>
+ * <li>{@code -n <walks>}: the number of random walks of every board size,
+ * 200 by default.
+ * <li>{@code -r <seed>}: the seed of the positions and moves.
+ * </ul>
+ *
+ * <p>
+ * The first move which differs is printed and the check exits with status 1.
+ */
+public final class LineRunsCheck {
+    /**
+     * The owner of an empty cell.
+     */
+    private static final int EMPTY = -1;
+
+    /**
+     * The board sizes of the checked positions.
+     */
+    private static final int[] SIZES = {5, 7, 9, 11};
+
+    /**
+     * The number of changes of a walk.
+     */
+    private static final int STEPS = 300;
+
+    /**
+     * The move vectors in the order of the directions of the packed moves.
+     */
+    private static final int[][] MOVE_VECTORS
+            = {{0, 1}, {1, 1}, {1, 0}, {0, -1}, {-1, -1}, {-1, 0}};
+
+    /**
+     * Cannot instantiate utility class.
+     */
+    private LineRunsCheck() {
+    }
+
+    /**
+     * Run the random walks and print the number of compared moves.
+     *
+     * @param args The options.
+     */
+    public static void main(String[] args) {
+        int walks = 200;
+        long seed = 14;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-n":
+                        walks = Integer.parseInt(args[++i]);
+                        break;
+                    case "-r":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException();
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.out.println("Error! Usage: LineRunsCheck [-n walks] "
+                    + "[-r seed]");
+            return;
+        }
+        Random random = new Random(seed);
+        long lookups = 0;
+
+        for (int size : SIZES) {
+            Topology topology = Topology.get(size);
+
+            for (int walk = 0; walk < walks; walk++) {
+                lookups += walk(topology, random);
+            }
+        }
+        System.out.println(lookups + " moves looked up, no differences");
+    }
+
+    /**
+     * Fill a board randomly, change it by random moves and their undos and
+     * compare the index with a scan of the lines after some of the changes.
+     * The walk ends with the undo of all moves which are left.
+     *
+     * @param topology The topology of the board size.
+     * @param random The source of the positions and moves.
+     * @return The number of compared moves.
+     */
+    private static long walk(Topology topology, Random random) {
+        int cells = topology.getCells();
+        int[] owners = new int[cells];
+        LineRuns runs = new LineRuns(topology);
+        Deque<int[]> undos = new ArrayDeque<>();
+        long lookups = 0;
+
+        for (int cell = 0; cell < cells; cell++) {
+            owners[cell] = random.nextBoolean() ? EMPTY : random.nextInt(2);
+
+            if (owners[cell] != EMPTY) {
+                runs.setOwner(cell, owners[cell]);
+            }
+        }
+        lookups += compare(topology, owners, runs);
+
+        for (int step = 0; step < STEPS; step++) {
+            if (undos.isEmpty() || random.nextInt(3) > 0) {
+                int move = findRandomMove(topology, owners, random);
+
+                if (move == PackedMove.NONE) {
+                    break;
+                }
+                undos.push(makeMove(topology, owners, runs, move));
+            } else {
+                undo(owners, runs, undos.pop());
+            }
+
+            if (random.nextInt(4) == 0) {
+                lookups += compare(topology, owners, runs);
+            }
+        }
+
+        while (!undos.isEmpty()) {
+            undo(owners, runs, undos.pop());
+        }
+        return lookups + compare(topology, owners, runs);
+    }
+
+    /**
+     * Compare the move of every cell and direction in the index with the
+     * move found by walking the line. A difference is printed and ends the
+     * check with status 1.
+     *
+     * @param topology The topology of the board size.
+     * @param owners The owner of every cell or {@link #EMPTY}.
+     * @param runs The index of the runs.
+     * @return The number of compared moves.
+     */
+    private static int compare(Topology topology, int[] owners,
+                               LineRuns runs) {
+        int cells = topology.getCells();
+
+        for (int cell = 0; cell < cells; cell++) {
+            for (int dir = 0; dir < PackedMove.DIRECTIONS; dir++) {
+                int expected = scan(topology, owners, cell, dir);
+                int actual = runs.getMove(cell, dir);
+
+                if (actual != expected) {
+                    System.out.println("Error! The runs give "
+                            + toString(actual, topology) + " instead of "
+                            + toString(expected, topology) + " for cell "
+                            + cell + " and direction " + dir + " of size "
+                            + topology.getSize() + ".");
+                    System.exit(1);
+                }
+            }
+        }
+        return cells * PackedMove.DIRECTIONS;
+    }
+
+    /**
+     * Get the move of the ball in a cell into a direction by walking its line
+     * in the coordinates of the board: the run of the owner, the run of the
+     * other player which follows it and the slot behind both.
+     *
+     * @param topology The topology of the board size.
+     * @param owners The owner of every cell or {@link #EMPTY}.
+     * @param cell The cell of the moved ball.
+     * @param dir The direction of the move.
+     * @return The packed move or {@link PackedMove#NONE} if the cell is empty
+     *         or the move is not possible.
+     */
+    private static int scan(Topology topology, int[] owners, int cell,
+                            int dir) {
+        int owner = owners[cell];
+
+        if (owner == EMPTY) {
+            return PackedMove.NONE;
+        }
+        int row = topology.getRows()[cell];
+        int diag = topology.getDiags()[cell];
+        int rowDiff = MOVE_VECTORS[dir][0];
+        int diagDiff = MOVE_VECTORS[dir][1];
+        int own = 0;
+
+        while (getOwner(topology, owners, row, diag) == owner) {
+            own++;
+            row += rowDiff;
+            diag += diagDiff;
+        }
+
+        if (!topology.isValid(row, diag)
+                || getOwner(topology, owners, row, diag) == EMPTY) {
+            return PackedMove.pack(cell, dir, false);
+        }
+        int other = 0;
+
+        while (getOwner(topology, owners, row, diag) == 1 - owner) {
+            other++;
+            row += rowDiff;
+            diag += diagDiff;
+        }
+        boolean isOff = !topology.isValid(row, diag);
+
+        if (own > other && (isOff
+                || getOwner(topology, owners, row, diag) == EMPTY)) {
+            return PackedMove.pack(cell, dir, isOff);
+        } else {
+            return PackedMove.NONE;
+        }
+    }
+
+    /**
+     * Get the owner of a slot.
+     *
+     * @param topology The topology of the board size.
+     * @param owners The owner of every cell or {@link #EMPTY}.
+     * @param row The row of the slot.
+     * @param diag The diagonal of the slot.
+     * @return The owner or {@link #EMPTY} if the slot is empty or invalid.
+     */
+    private static int getOwner(Topology topology, int[] owners, int row,
+                                int diag) {
+        return topology.isValid(row, diag)
+                ? owners[topology.getCell(row, diag)] : EMPTY;
+    }
+
+    /**
+     * Find a random move of a random ball by walking the lines.
+     *
+     * @param topology The topology of the board size.
+     * @param owners The owner of every cell or {@link #EMPTY}.
+     * @param random The source of the move.
+     * @return The packed move or {@link PackedMove#NONE} if no ball can
+     *         move.
+     */
+    private static int findRandomMove(Topology topology, int[] owners,
+                                      Random random) {
+        int cells = topology.getCells();
+        int start = random.nextInt(cells * PackedMove.DIRECTIONS);
+
+        for (int i = 0; i < cells * PackedMove.DIRECTIONS; i++) {
+            int index = (start + i) % (cells * PackedMove.DIRECTIONS);
+            int move = scan(topology, owners, index / PackedMove.DIRECTIONS,
+                    index % PackedMove.DIRECTIONS);
+
+            if (move != PackedMove.NONE) {
+                return move;
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    /**
+     * Make a move by shifting every ball of its line by one slot and report
+     * the changed cells to the index.
+     *
+     * @param topology The topology of the board size.
+     * @param owners The owner of every cell or {@link #EMPTY}.
+     * @param runs The index of the runs.
+     * @param move The packed move.
+     * @return The changed cells and their previous owners in pairs.
+     */
+    private static int[] makeMove(Topology topology, int[] owners,
+                                  LineRuns runs, int move) {
+        int[] neighbours = topology.getNeighbours();
+        int dir = PackedMove.getDirection(move);
+        int cell = PackedMove.getSlot(move);
+        int length = 0;
+
+        for (int next = cell; next != Topology.OFF_BOARD
+                && owners[next] != EMPTY;
+             next = neighbours[next * PackedMove.DIRECTIONS + dir]) {
+            length++;
+        }
+        int[] undo = new int[2 * (length + 1)];
+        int carried = EMPTY;
+        int changed = 0;
+
+        for (int i = 0; i <= length && cell != Topology.OFF_BOARD; i++) {
+            undo[changed++] = cell;
+            undo[changed++] = owners[cell];
+            int owner = owners[cell];
+            setOwner(owners, runs, cell, carried);
+            carried = owner;
+            cell = neighbours[cell * PackedMove.DIRECTIONS + dir];
+        }
+        return Arrays.copyOf(undo, changed);
+    }
+
+    /**
+     * Undo a move by restoring the previous owners of its cells in reverse
+     * order.
+     *
+     * @param owners The owner of every cell or {@link #EMPTY}.
+     * @param runs The index of the runs.
+     * @param undo The changed cells and their previous owners in pairs.
+     */
+    private static void undo(int[] owners, LineRuns runs, int[] undo) {
+        for (int i = undo.length - 2; i >= 0; i -= 2) {
+            setOwner(owners, runs, undo[i], undo[i + 1]);
+        }
+    }
+
+    /**
+     * Set the owner of a cell and report it to the index like the boards do.
+     *
+     * @param owners The owner of every cell or {@link #EMPTY}.
+     * @param runs The index of the runs.
+     * @param cell The cell.
+     * @param owner The new owner or {@link #EMPTY}.
+     */
+    private static void setOwner(int[] owners, LineRuns runs, int cell,
+                                 int owner) {
+        owners[cell] = owner;
+
+        if (owner == EMPTY) {
+            runs.clear(cell);
+        } else {
+            runs.setOwner(cell, owner);
+        }
+    }
+
+    /**
+     * Get the text of a packed move.
+     *
+     * @param move The packed move or {@link PackedMove#NONE}.
+     * @param topology The topology of the board size.
+     * @return The text.
+     */
+    private static String toString(int move, Topology topology) {
+        return move == PackedMove.NONE ? "no move"
+                : PackedMove.toString(move, topology.getSize());
+    }
+}
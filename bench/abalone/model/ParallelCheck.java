@@ -0,0 +1,247 @@
+package abalone.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks that the parallel search of the machine chooses the same move as
+ * the sequential search. The positions are captured from games of the
+ * machine against a human who plays seeded random moves. Every position is
+ * searched with a random depth and search mode, once on the calling thread
+ * and then on a pool in every parallel mode with a fixed depth and deepening
+ * iteratively.
+ *
+ * <p>
+ * Usage: {@code java abalone.model.ParallelCheck [options]}. The options
+ * are
+ * <ul>
+ * <li>{@code -p <threads>}: the number of threads of the pool, 4 by
+ * default.
+ * <li>{@code -n <games>}: the number of games of every board type and size
+ * from which positions are captured, 10 by default.
+ * <li>{@code -r <seed>}: the seed of the random moves, depths and modes.
+ * </ul>
+ *
+ * <p>
+ * Every position whose moves differ is printed. The check ends with the
+ * number of searched positions.
+ */
+public final class ParallelCheck {
+    /**
+     * The board sizes of the checked positions.
+     */
+    private static final int[] SIZES = {7, 9};
+
+    /**
+     * The highest depth of the checked searches.
+     */
+    private static final int MAX_DEPTH = 3;
+
+    /**
+     * The level of the machine in the games the positions are captured from.
+     */
+    private static final int GAME_LEVEL = 1;
+
+    /**
+     * The number of moves after which a game is given up.
+     */
+    private static final int MAX_GAME_MOVES = 60;
+
+    /**
+     * The time limit of a deepening search in milliseconds, which the
+     * checked depths never reach, so the search deepens up to its depth.
+     */
+    private static final long DEEPENING_TIME_LIMIT = 3_600_000;
+
+    /**
+     * The size of the transposition table of a parallel search in bytes.
+     */
+    private static final long TABLE_BYTES = 16L << 20;
+
+    /**
+     * Cannot instantiate utility class.
+     */
+    private ParallelCheck() {
+    }
+
+    /**
+     * Compare the parallel and the sequential moves and print the result.
+     *
+     * @param args The options.
+     */
+    public static void main(String[] args) {
+        int threads = 4;
+        int games = 10;
+        long seed = 4;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-p":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "-n":
+                        games = Integer.parseInt(args[++i]);
+                        break;
+                    case "-r":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException();
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.out.println("Error! Usage: ParallelCheck [-p threads] "
+                    + "[-n games] [-r seed]");
+            return;
+        }
+
+        if (threads < 1) {
+            System.out.println("Error! The pool needs at least one thread.");
+            return;
+        }
+        Random random = new Random(seed);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        int positions = 0;
+        int differences = 0;
+
+        for (BoardType type : BoardType.values()) {
+            for (int size : SIZES) {
+                for (SearchBoard board
+                        : capturePositions(type, size, games, random)) {
+                    int depth = 1 + random.nextInt(MAX_DEPTH);
+                    SearchMode mode = random.nextInt(4) == 0
+                            ? SearchMode.MINIMAX : SearchMode.ALPHA_BETA;
+
+                    if (!check(board, depth, mode, pool)) {
+                        differences++;
+                    }
+                    positions++;
+                }
+            }
+        }
+        pool.shutdown();
+        System.out.println(positions + " positions, " + differences
+                + " different moves");
+    }
+
+    /**
+     * Search a position sequentially and in parallel and print the
+     * searches whose move differs from the sequential one.
+     *
+     * @param board The board on which the machine moves next. It is not
+     *              changed.
+     * @param depth The depth of the searches.
+     * @param mode The algorithm of the searches.
+     * @param pool The pool of the parallel searches.
+     * @return {@code true} iff all searches chose the same move.
+     */
+    private static boolean check(SearchBoard board, int depth,
+                                 SearchMode mode, ForkJoinPool pool) {
+        int expected = new Search(depth, mode, null).findBestMove(
+                board.copy());
+        boolean same = true;
+
+        for (ParallelMode parallelMode : ParallelMode.values()) {
+            int fixed = createSearch(depth, mode, pool, parallelMode)
+                    .findBestMove(board.copy());
+            int deepened = createSearch(depth, mode, pool, parallelMode)
+                    .findBestMove(board.copy(), DEEPENING_TIME_LIMIT,
+                            new CancellationToken());
+
+            if (fixed != expected) {
+                printDifference(board, depth, mode,
+                        parallelMode + " with a fixed depth", expected,
+                        fixed);
+                same = false;
+            }
+
+            if (deepened != expected) {
+                printDifference(board, depth, mode,
+                        parallelMode + " deepening", expected, deepened);
+                same = false;
+            }
+        }
+        return same;
+    }
+
+    /**
+     * Create a parallel search with its own transposition table.
+     *
+     * @param depth The depth of the search.
+     * @param mode The algorithm of the search.
+     * @param pool The pool of the search.
+     * @param parallelMode The way the search uses the pool.
+     * @return The search.
+     */
+    private static Search createSearch(int depth, SearchMode mode,
+                                       ForkJoinPool pool,
+                                       ParallelMode parallelMode) {
+        return new Search(depth, mode, new TranspositionTable(TABLE_BYTES),
+                pool, parallelMode);
+    }
+
+    /**
+     * Print a search whose move differs from the sequential one.
+     *
+     * @param board The searched board.
+     * @param depth The depth of the search.
+     * @param mode The algorithm of the search.
+     * @param search The kind of the parallel search.
+     * @param expected The packed move of the sequential search.
+     * @param actual The packed move of the parallel search.
+     */
+    private static void printDifference(SearchBoard board, int depth,
+                                        SearchMode mode, String search,
+                                        int expected, int actual) {
+        Topology topology = Topology.get(board.getSize());
+        System.out.println("Error! " + search + " chose "
+                + topology.toMove(actual) + " instead of "
+                + topology.toMove(expected) + " (" + mode + ", depth "
+                + depth + ", position " + Long.toHexString(board.getHash())
+                + ")");
+    }
+
+    /**
+     * Play games of the machine against seeded random moves of the human and
+     * capture the positions in which the machine moves.
+     *
+     * @param type The board type.
+     * @param size The board size.
+     * @param games The number of games.
+     * @param random The source of the random moves.
+     * @return The positions.
+     */
+    private static List<SearchBoard> capturePositions(BoardType type,
+                                                      int size, int games,
+                                                      Random random) {
+        List<SearchBoard> positions = new ArrayList<>();
+        int[] moves = null;
+
+        for (int game = 0; game < games; game++) {
+            Board board = type.create(size, Player.MACHINE, GAME_LEVEL);
+
+            for (int i = 0; i < MAX_GAME_MOVES && !board.isGameOver(); i++) {
+                if (board.getNextPlayer() == Player.MACHINE) {
+                    positions.add((SearchBoard) board);
+                    board = board.machineMove();
+                } else {
+                    SearchBoard position = (SearchBoard) board;
+
+                    if (moves == null) {
+                        moves = new int[position.getMoveCapacity()];
+                    }
+                    int count = position.getPossibleMoves(Player.HUMAN,
+                            moves);
+                    Move move = Topology.get(size).toMove(
+                            moves[random.nextInt(count)]);
+                    board = board.move(move.getRowFrom(), move.getDiagFrom(),
+                            move.getRowTo(), move.getDiagTo());
+                }
+            }
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,225 @@
+package abalone.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures the speedup of the parallel search of the machine over the
+ * sequential search. The positions are middlegame positions captured from
+ * games of the machine against a human who plays seeded random moves. Every
+ * position is searched with alpha-beta pruning and a fresh transposition
+ * table, once on the calling thread and then in every parallel mode on pools
+ * of more and more threads. After two runs to warm up, the time of the
+ * fastest of three runs over all positions is printed with the positions
+ * visited by all threads.
+ *
+ * <p>
+ * The speedup can only be measured on a machine with at least as many free
+ * processors as threads. With fewer processors the threads share them and
+ * the times only show the overhead of the parallel search.
+ *
+ * <p>
+ * Usage: {@code java abalone.model.ParallelSpeedup [options]}. The options
+ * are
+ * <ul>
+ * <li>{@code -b <board>}: the board type, "abalone" or "bitboard"
+ * (default).
+ * <li>{@code -s <size>}: the board size, 9 by default.
+ * <li>{@code -l <level>}: the level of the machine, 5 by default.
+ * <li>{@code -n <positions>}: the number of positions, 8 by default.
+ * <li>{@code -t <threads>}: the comma separated numbers of threads, 1, 2,
+ * 4, 8 and 16 by default.
+ * </ul>
+ */
+public final class ParallelSpeedup {
+    /**
+     * The number of runs before the measurement starts.
+     */
+    private static final int WARMUP_RUNS = 2;
+
+    /**
+     * The number of runs of which the fastest is printed.
+     */
+    private static final int RUNS = 3;
+
+    /**
+     * The number of moves of a game before a position is captured.
+     */
+    private static final int OPENING_MOVES = 20;
+
+    /**
+     * The size of the transposition table of a search in bytes.
+     */
+    private static final long TABLE_BYTES = 64L << 20;
+
+    /**
+     * The seed of the random moves of the human.
+     */
+    private static final long SEED = 5;
+
+    /**
+     * Cannot instantiate utility class.
+     */
+    private ParallelSpeedup() {
+    }
+
+    /**
+     * Measure and print the times of the sequential and parallel searches.
+     *
+     * @param args The options.
+     */
+    public static void main(String[] args) {
+        BoardType type = BoardType.BITBOARD;
+        int size = 9;
+        int level = 5;
+        int count = 8;
+        int[] threads = {1, 2, 4, 8, 16};
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-b":
+                        type = BoardType.valueOf(args[++i].toUpperCase());
+                        break;
+                    case "-s":
+                        size = Integer.parseInt(args[++i]);
+                        break;
+                    case "-l":
+                        level = Integer.parseInt(args[++i]);
+                        break;
+                    case "-n":
+                        count = Integer.parseInt(args[++i]);
+                        break;
+                    case "-t":
+                        String[] values = args[++i].split(",");
+                        threads = new int[values.length];
+
+                        for (int j = 0; j < values.length; j++) {
+                            threads[j] = Integer.parseInt(values[j]);
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException();
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.out.println("Error! Usage: ParallelSpeedup [-b board] "
+                    + "[-s size] [-l level] [-n positions] [-t threads]");
+            return;
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.println("processors: " + processors);
+
+        for (int thread : threads) {
+            if (thread > processors) {
+                System.out.println("Warning! " + thread + " threads share "
+                        + processors + " processors, their time is no "
+                        + "speedup.");
+            }
+        }
+        List<SearchBoard> positions = capturePositions(type, size, count);
+        long sequential = measure(positions, level, null,
+                ParallelMode.ROOT_SPLIT, 0);
+
+        for (ParallelMode parallelMode : ParallelMode.values()) {
+            for (int thread : threads) {
+                ForkJoinPool pool = new ForkJoinPool(thread);
+                measure(positions, level, pool, parallelMode, sequential);
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Measure and print the time of a search of all positions.
+     *
+     * @param positions The positions.
+     * @param level The level of the machine.
+     * @param pool The pool of the search or {@code null} to search on the
+     *             calling thread.
+     * @param parallelMode The way the search uses the pool.
+     * @param sequential The time of the sequential search in nanoseconds or
+     *                   0 if it is the measured search.
+     * @return The time of the fastest run in nanoseconds.
+     */
+    private static long measure(List<SearchBoard> positions, int level,
+                                ForkJoinPool pool, ParallelMode parallelMode,
+                                long sequential) {
+        long best = Long.MAX_VALUE;
+        long nodes = 0;
+
+        for (int run = 0; run < WARMUP_RUNS + RUNS; run++) {
+            long time = 0;
+            nodes = 0;
+
+            for (SearchBoard position : positions) {
+                Search search = new Search(level, SearchMode.ALPHA_BETA,
+                        new TranspositionTable(TABLE_BYTES), pool,
+                        parallelMode);
+                SearchBoard board = position.copy();
+                long start = System.nanoTime();
+                search.findBestMove(board);
+                time += System.nanoTime() - start;
+                nodes += search.getNodes();
+            }
+            if (run >= WARMUP_RUNS) {
+                best = Math.min(best, time);
+            }
+        }
+        String name = pool == null ? "sequential"
+                : parallelMode.name().toLowerCase() + "/"
+                + pool.getParallelism();
+        System.out.println(String.format(Locale.ROOT,
+                "%-16s %8.0f ms %12d positions  speedup %.2f", name,
+                best / 1e6, nodes,
+                sequential > 0 ? (double) sequential / best : 1.0));
+        return best;
+    }
+
+    /**
+     * Play games of the machine against seeded random moves of the human and
+     * capture the positions in which the machine moves after the opening.
+     *
+     * @param type The board type.
+     * @param size The board size.
+     * @param count The number of positions.
+     * @return The positions.
+     */
+    private static List<SearchBoard> capturePositions(BoardType type,
+                                                      int size, int count) {
+        Random random = new Random(SEED);
+        List<SearchBoard> positions = new ArrayList<>();
+        int[] moves = null;
+
+        while (positions.size() < count) {
+            Board board = type.create(size, Player.MACHINE, 1);
+
+            for (int i = 0; i < OPENING_MOVES && !board.isGameOver(); i++) {
+                if (board.getNextPlayer() == Player.MACHINE) {
+                    board = board.machineMove();
+                } else {
+                    SearchBoard position = (SearchBoard) board;
+
+                    if (moves == null) {
+                        moves = new int[position.getMoveCapacity()];
+                    }
+                    int possible = position.getPossibleMoves(Player.HUMAN,
+                            moves);
+                    Move move = Topology.get(size).toMove(
+                            moves[random.nextInt(possible)]);
+                    board = board.move(move.getRowFrom(), move.getDiagFrom(),
+                            move.getRowTo(), move.getDiagTo());
+                }
+            }
+
+            if (!board.isGameOver()
+                    && board.getNextPlayer() == Player.MACHINE) {
+                positions.add((SearchBoard) board);
+            }
+        }
+        return positions;
+    }
+}
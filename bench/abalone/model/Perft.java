@@ -0,0 +1,372 @@
+package abalone.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the positions which are reached after a number of moves from a
+ * position, which measures the speed of the move generation and checks
+ * changes of it against known counts. The moves are generated, made and
+ * undone like in the search, so a player who cannot move is skipped and a
+ * finished game has no further positions.
+ *
+ * <p>
+ * Usage: {@code java abalone.model.Perft [options] depth}. The options are
+ * <ul>
+ * <li>{@code -b <board>}: the board type, "abalone" (default) or
+ * "bitboard".
+ * <li>{@code -s <size>}: the board size, 9 by default.
+ * <li>{@code -o <player>}: the opening player, "human" (default) or
+ * "machine".
+ * <li>{@code -m <r1> <d1> <r2> <d2>}: a move which is made before counting,
+ * in the coordinates of the shell. It can be repeated.
+ * <li>{@code -d}: print the count of every move of the position.
+ * <li>{@code -p <threads>}: count the moves of the position in parallel.
+ * </ul>
+ *
+ * <p>
+ * The counts of {@link AbaloneBoard} are the reference every other board
+ * must match. The counts from the start positions of the sizes 7, 9 and 11
+ * are known up to depth 4 for both opening players. Without moves before
+ * counting every count of a known depth is compared with them and a
+ * difference ends the count with status 1.
+ */
+public final class Perft {
+    /**
+     * The known counts from the start position of the sizes 7, 9 and 11 at
+     * the depths 1 to 4.
+     */
+    private static final Map<Integer, long[]> KNOWN_COUNTS = Map.of(
+            7, new long[] {66, 4320, 265314, 16207592},
+            9, new long[] {84, 7056, 567504, 45642496},
+            11, new long[] {102, 10404, 1024488, 100881936});
+
+    /**
+     * The move vectors in the order of the directions of the packed moves.
+     */
+    private static final int[][] MOVE_VECTORS
+            = {{0, 1}, {1, 1}, {1, 0}, {0, -1}, {-1, -1}, {-1, 0}};
+
+    /**
+     * Cannot instantiate utility class.
+     */
+    private Perft() {
+    }
+
+    /**
+     * Count the positions and print the counts of every depth up to the
+     * given one with the time and the positions per second.
+     *
+     * @param args The options and the depth.
+     */
+    public static void main(String[] args) {
+        BoardType type = BoardType.ABALONE;
+        int size = 9;
+        Player openingPlayer = Player.HUMAN;
+        List<int[]> startMoves = new ArrayList<>();
+        boolean divide = false;
+        int threads = 0;
+        int depth = -1;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-b":
+                        type = BoardType.valueOf(args[++i].toUpperCase());
+                        break;
+                    case "-s":
+                        size = Integer.parseInt(args[++i]);
+                        break;
+                    case "-o":
+                        openingPlayer
+                                = Player.valueOf(args[++i].toUpperCase());
+                        break;
+                    case "-m":
+                        startMoves.add(new int[] {
+                                Integer.parseInt(args[++i]) - 1,
+                                Integer.parseInt(args[++i]) - 1,
+                                Integer.parseInt(args[++i]) - 1,
+                                Integer.parseInt(args[++i]) - 1});
+                        break;
+                    case "-d":
+                        divide = true;
+                        break;
+                    case "-p":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        depth = Integer.parseInt(args[i]);
+                        break;
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.out.println("Error! Invalid arguments.");
+            return;
+        }
+
+        if (depth < 0) {
+            System.out.println("Error! Usage: Perft [-b board] [-s size] "
+                    + "[-o player] [-m r1 d1 r2 d2]... [-d] [-p threads] "
+                    + "depth");
+            return;
+        }
+        SearchBoard board
+                = (SearchBoard) type.create(size, openingPlayer, 1);
+
+        for (int[] move : startMoves) {
+            int packed = findMove(board, move);
+
+            if (packed == PackedMove.NONE) {
+                System.out.println("Error! Invalid move: "
+                        + toMove(move));
+                return;
+            }
+            board.makeMove(packed);
+        }
+        ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : null;
+        long[] knownCounts = startMoves.isEmpty()
+                ? KNOWN_COUNTS.get(size) : null;
+        boolean isKnown = true;
+
+        for (int height = 1; height <= depth; height++) {
+            long start = System.nanoTime();
+            long nodes = pool == null ? count(board, height)
+                    : pool.invoke(new PerftTask(board, height));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format(Locale.ROOT,
+                    "depth %d: %d positions in %.3f s, %.0f positions/s",
+                    height, nodes, seconds, nodes / seconds));
+
+            if (knownCounts != null && height <= knownCounts.length
+                    && nodes != knownCounts[height - 1]) {
+                System.out.println("Error! The known count of depth "
+                        + height + " is " + knownCounts[height - 1] + ".");
+                isKnown = false;
+            }
+        }
+
+        if (divide) {
+            printDivide(board, depth);
+        }
+
+        if (pool != null) {
+            pool.shutdown();
+        }
+
+        if (!isKnown) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Count the positions which are reached after the given number of moves.
+     *
+     * @param board The board. Its moves are made and undone in place.
+     * @param depth The number of moves.
+     * @return The number of positions.
+     */
+    static long count(SearchBoard board, int depth) {
+        int[][] buffers = new int[depth][board.getMoveCapacity()];
+        return count(board, depth, buffers);
+    }
+
+    /**
+     * Count the positions which are reached after the given number of moves
+     * with a buffer of moves for every remaining depth.
+     *
+     * @param board The board.
+     * @param depth The number of moves.
+     * @param buffers The move buffers indexed by the remaining depth minus
+     *                one.
+     * @return The number of positions.
+     */
+    private static long count(SearchBoard board, int depth,
+                              int[][] buffers) {
+        if (depth == 0) {
+            return 1;
+        } else if (board.isGameOver()) {
+            return 0;
+        }
+        int[] moves = buffers[depth - 1];
+        int count = board.getPossibleMoves(board.getNextPlayer(), moves);
+
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            nodes += count(board, depth - 1, buffers);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Print the number of positions after every move of the board.
+     *
+     * @param board The board.
+     * @param depth The number of moves including the first one.
+     */
+    private static void printDivide(SearchBoard board, int depth) {
+        if (depth == 0 || board.isGameOver()) {
+            return;
+        }
+        int[] moves = new int[board.getMoveCapacity()];
+        int count = board.getPossibleMoves(board.getNextPlayer(), moves);
+
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            System.out.println(toMove(board, moves[i]) + ": "
+                    + count(board, depth - 1));
+            board.unmakeMove();
+        }
+        System.out.println("moves: " + count);
+    }
+
+    /**
+     * Find the packed move of the next player with the given coordinates.
+     *
+     * @param board The board.
+     * @param coordinates The start row and diagonal and the target row and
+     *                    diagonal.
+     * @return The packed move or {@link PackedMove#NONE} if the move is not
+     *         possible.
+     */
+    private static int findMove(SearchBoard board, int[] coordinates) {
+        int[] moves = new int[board.getMoveCapacity()];
+        int count = board.isGameOver() ? 0
+                : board.getPossibleMoves(board.getNextPlayer(), moves);
+
+        for (int i = 0; i < count; i++) {
+            int[] move = getCoordinates(board, moves[i]);
+
+            if (Arrays.equals(move, coordinates)) {
+                return moves[i];
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    /**
+     * Get the coordinates of a packed move.
+     *
+     * @param board The board of the move.
+     * @param move The packed move.
+     * @return The start row and diagonal and the target row and diagonal.
+     */
+    private static int[] getCoordinates(SearchBoard board, int move) {
+        Topology topology = Topology.get(board.getSize());
+        int cell = PackedMove.getSlot(move);
+        int[] vector = MOVE_VECTORS[PackedMove.getDirection(move)];
+        int row = topology.getRows()[cell];
+        int diag = topology.getDiags()[cell];
+        return new int[] {row, diag, row + vector[0], diag + vector[1]};
+    }
+
+    /**
+     * Get the move of a packed move.
+     *
+     * @param board The board of the move.
+     * @param move The packed move.
+     * @return The move.
+     */
+    private static Move toMove(SearchBoard board, int move) {
+        return toMove(getCoordinates(board, move));
+    }
+
+    /**
+     * Get the move with the given coordinates.
+     *
+     * @param coordinates The start row and diagonal and the target row and
+     *                    diagonal.
+     * @return The move.
+     */
+    private static Move toMove(int[] coordinates) {
+        return new Move(coordinates[0], coordinates[1], coordinates[2],
+                coordinates[3]);
+    }
+
+    /**
+     * Counts the positions after every move of a position in parallel. Every
+     * move is counted on its own copy of the board.
+     */
+    private static final class PerftTask extends RecursiveTask<Long> {
+        /**
+         * Serial version UID of the task.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The board whose positions are counted. It is not changed.
+         */
+        private final transient SearchBoard board;
+
+        /**
+         * The number of moves.
+         */
+        private final int depth;
+
+        /**
+         * The move of this task or {@link PackedMove#NONE} if the task splits
+         * the moves of the board.
+         */
+        private final int move;
+
+        /**
+         * Creates a task which splits the moves of the given board.
+         *
+         * @param board The board.
+         * @param depth The number of moves.
+         */
+        private PerftTask(SearchBoard board, int depth) {
+            this(board, depth, PackedMove.NONE);
+        }
+
+        /**
+         * Creates a task.
+         *
+         * @param board The board.
+         * @param depth The number of moves including the move of the task.
+         * @param move The move of this task or {@link PackedMove#NONE}.
+         */
+        private PerftTask(SearchBoard board, int depth, int move) {
+            this.board = board;
+            this.depth = depth;
+            this.move = move;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected Long compute() {
+            if (move != PackedMove.NONE) {
+                SearchBoard copy = board.copy();
+                copy.makeMove(move);
+                return count(copy, depth - 1);
+            } else if (depth < 2 || board.isGameOver()) {
+                return count(board.copy(), depth);
+            }
+            int[] moves = new int[board.getMoveCapacity()];
+            int count = board.getPossibleMoves(board.getNextPlayer(), moves);
+            List<PerftTask> tasks = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                tasks.add(new PerftTask(board, depth, moves[i]));
+            }
+            long nodes = 0;
+
+            for (PerftTask task : invokeAll(tasks)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+}
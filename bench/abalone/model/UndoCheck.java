@@ -0,0 +1,212 @@
+package abalone.model;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * Checks that undoing a move restores the board. Random walks make and undo
+ * random moves on boards of every type and size, the {@link AbaloneBoard}
+ * with its ball list and the {@link BitBoard} by shifting and unshifting the
+ * line of the move. Every undo is compared with the state of the board
+ * before its move: the hash, the number of balls of both colors, the next
+ * player and the color of every slot.
+ *
+ * <p>
+ * Usage: {@code java abalone.model.UndoCheck [options]}. The options are
+ * <ul>
+ * <li>{@code -n <walks>}: the number of random walks of every board type
+ * and size, 50 by default.
+ * <li>{@code -r <seed>}: the seed of the moves.
+ * </ul>
+ *
+ * <p>
+ * The first undo which does not restore the board is printed and the check
+ * exits with status 1.
+ */
+public final class UndoCheck {
+    /**
+     * The board sizes of the checked positions.
+     */
+    private static final int[] SIZES = {7, 9, 11, 13};
+
+    /**
+     * The number of moves and undos of a walk.
+     */
+    private static final int STEPS = 400;
+
+    /**
+     * Cannot instantiate utility class.
+     */
+    private UndoCheck() {
+    }
+
+    /**
+     * Run the random walks and print the number of checked undos.
+     *
+     * @param args The options.
+     */
+    public static void main(String[] args) {
+        int walks = 50;
+        long seed = 4;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-n":
+                        walks = Integer.parseInt(args[++i]);
+                        break;
+                    case "-r":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException();
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.out.println("Error! Usage: UndoCheck [-n walks] [-r seed]");
+            return;
+        }
+        Random random = new Random(seed);
+        long undos = 0;
+
+        for (BoardType type : BoardType.values()) {
+            for (int size : SIZES) {
+                for (int walk = 0; walk < walks; walk++) {
+                    Player openingPlayer = random.nextBoolean()
+                            ? Player.HUMAN : Player.MACHINE;
+                    SearchBoard board = (SearchBoard) type.create(size,
+                            openingPlayer, 1);
+                    undos += walk(board, random);
+                }
+            }
+        }
+        System.out.println(undos + " undos checked, no differences");
+    }
+
+    /**
+     * Make and undo random moves on a board and compare the board after
+     * every undo with its state before the move. Push-outs are preferred, so
+     * the walks also lose balls and end games. The walk ends with the undo
+     * of all moves which are left.
+     *
+     * @param board The board.
+     * @param random The source of the moves.
+     * @return The number of checked undos.
+     */
+    private static long walk(SearchBoard board, Random random) {
+        int[] moves = new int[board.getMoveCapacity()];
+        Deque<long[]> states = new ArrayDeque<>();
+        Deque<Integer> made = new ArrayDeque<>();
+        long undos = 0;
+
+        for (int step = 0; step < STEPS; step++) {
+            int count = board.isGameOver() ? 0
+                    : board.getPossibleMoves(board.getNextPlayer(), moves);
+
+            if (count > 0 && (states.isEmpty() || random.nextInt(3) > 0)) {
+                int move = chooseMove(moves, count, random);
+                states.push(getState(board));
+                made.push(move);
+                board.makeMove(move);
+            } else if (!states.isEmpty()) {
+                board.unmakeMove();
+                compare(board, states.pop(), made.pop());
+                undos++;
+            } else {
+                break;
+            }
+        }
+
+        while (!states.isEmpty()) {
+            board.unmakeMove();
+            compare(board, states.pop(), made.pop());
+            undos++;
+        }
+        return undos;
+    }
+
+    /**
+     * Choose a random move and prefer to push a ball off the board.
+     *
+     * @param moves The packed moves.
+     * @param count The number of moves.
+     * @param random The source of the move.
+     * @return The packed move.
+     */
+    private static int chooseMove(int[] moves, int count, Random random) {
+        int start = random.nextInt(count);
+
+        if (random.nextBoolean()) {
+            for (int i = 0; i < count; i++) {
+                int move = moves[(start + i) % count];
+
+                if (PackedMove.isPushOut(move)) {
+                    return move;
+                }
+            }
+        }
+        return moves[start];
+    }
+
+    /**
+     * Get the state of a board which an undo must restore: the hash, the
+     * number of balls of both colors, the next player and the color of
+     * every valid slot.
+     *
+     * @param board The board.
+     * @return The state.
+     */
+    private static long[] getState(SearchBoard board) {
+        int size = board.getSize();
+        long[] state = new long[4 + size * size];
+        state[0] = board.getHash();
+        state[1] = board.getNumberOfBalls(Color.BLACK);
+        state[2] = board.getNumberOfBalls(Color.WHITE);
+        state[3] = board.getNextPlayer().ordinal();
+
+        for (int row = 0; row < size; row++) {
+            for (int diag = 0; diag < size; diag++) {
+                if (board.isValidPosition(row, diag)) {
+                    state[4 + row * size + diag]
+                            = board.getSlot(row, diag).ordinal();
+                }
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Compare a board after an undo with its state before the move. A
+     * difference is printed and ends the check with status 1.
+     *
+     * @param board The board after the undo.
+     * @param expected The state before the move.
+     * @param move The undone packed move.
+     */
+    private static void compare(SearchBoard board, long[] expected,
+                                int move) {
+        long[] actual = getState(board);
+
+        if (!Arrays.equals(actual, expected)) {
+            String part;
+
+            if (actual[0] != expected[0]) {
+                part = "hash";
+            } else if (actual[1] != expected[1] || actual[2] != expected[2]) {
+                part = "number of balls";
+            } else if (actual[3] != expected[3]) {
+                part = "next player";
+            } else {
+                part = "slots";
+            }
+            System.out.println("Error! The undo of "
+                    + PackedMove.toString(move, board.getSize()) + " on the "
+                    + board.getClass().getSimpleName() + " of size "
+                    + board.getSize() + " did not restore the " + part
+                    + ":\n" + board);
+            System.exit(1);
+        }
+    }
+}
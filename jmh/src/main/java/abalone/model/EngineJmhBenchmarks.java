@@ -0,0 +1,326 @@
+package abalone.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the hot paths of the engine. They measure the same
+ * positions as {@link EngineBenchmarks}, but every benchmark runs in a forked
+ * JVM and returns its result to JMH, which protects it from dead code
+ * elimination. Run them with {@code -prof gc} to get the memory allocated
+ * per operation by all threads of the JVM, including the threads of the
+ * pool of a parallel search.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineJmhBenchmarks {
+    /**
+     * Generate the possible moves of the next player of a position.
+     *
+     * @param positions The captured positions.
+     * @return The number of moves.
+     */
+    @Benchmark
+    public int getPossibleMoves(Positions positions) {
+        SearchBoard position = positions.nextPosition();
+        return position.getPossibleMoves(position.getNextPlayer(),
+                positions.buffer);
+    }
+
+    /**
+     * Make and undo a possible move of a position.
+     *
+     * @param positions The captured positions.
+     * @return The hash of the position after the move.
+     */
+    @Benchmark
+    public long makeUnmakeMove(Positions positions) {
+        int[] move = positions.nextSearchMove();
+        SearchBoard copy = positions.copies.get(move[0]);
+        copy.makeMove(move[1]);
+        long hash = copy.getHash();
+        copy.unmakeMove();
+        return hash;
+    }
+
+    /**
+     * Let the machine move in a position without a transposition table, so
+     * every search of the position does the same work.
+     *
+     * @param state The positions of the level.
+     * @return The board after the move.
+     */
+    @Benchmark
+    public Board machineMove(LevelPositions state) {
+        return state.nextPosition().machineMove();
+    }
+
+    /**
+     * Search the best move of a position with a cleared transposition table
+     * on the calling thread or on a pool.
+     *
+     * @param state The search and its positions.
+     * @return The packed best move.
+     */
+    @Benchmark
+    public int search(ParallelSearch state) {
+        return state.search.findBestMove(state.nextPosition());
+    }
+
+    /**
+     * The positions captured from games of a board type and size.
+     */
+    @State(Scope.Thread)
+    public static class Positions {
+        /**
+         * The board type.
+         */
+        @Param({"ABALONE", "BITBOARD"})
+        public BoardType type;
+
+        /**
+         * The board size.
+         */
+        @Param({"9"})
+        public int size;
+
+        /**
+         * The positions in which the machine moves.
+         */
+        List<SearchBoard> machinePositions = new ArrayList<>();
+
+        /**
+         * All captured positions.
+         */
+        List<SearchBoard> positions = new ArrayList<>();
+
+        /**
+         * The copies of the positions on which moves are made and undone.
+         */
+        List<SearchBoard> copies = new ArrayList<>();
+
+        /**
+         * The possible moves of all positions as the index of the position
+         * and the packed move.
+         */
+        List<int[]> searchMoves = new ArrayList<>();
+
+        /**
+         * The array which receives the possible moves.
+         */
+        int[] buffer;
+
+        /**
+         * The number of the next position or move.
+         */
+        private int next;
+
+        /**
+         * Capture the positions.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            List<SearchBoard> humanPositions = new ArrayList<>();
+            EngineBenchmarks.capturePositions(type, size, humanPositions,
+                    machinePositions);
+            positions.addAll(humanPositions);
+            positions.addAll(machinePositions);
+            buffer = new int[positions.get(0).getMoveCapacity()];
+
+            for (int i = 0; i < positions.size(); i++) {
+                SearchBoard position = positions.get(i);
+                int count = position.getPossibleMoves(
+                        position.getNextPlayer(), buffer);
+                copies.add(position.copy());
+
+                for (int k = 0; k < count; k++) {
+                    searchMoves.add(new int[] {i, buffer[k]});
+                }
+            }
+        }
+
+        /**
+         * Get the next position.
+         *
+         * @return The position.
+         */
+        SearchBoard nextPosition() {
+            return positions.get(next++ % positions.size());
+        }
+
+        /**
+         * Get the next possible move.
+         *
+         * @return The index of the position and the packed move.
+         */
+        int[] nextSearchMove() {
+            return searchMoves.get(next++ % searchMoves.size());
+        }
+    }
+
+    /**
+     * The positions in which the machine moves with a level and without a
+     * transposition table.
+     */
+    @State(Scope.Thread)
+    public static class LevelPositions {
+        /**
+         * The level of the machine.
+         */
+        @Param({"1", "2", "3", "4"})
+        public int level;
+
+        /**
+         * The copies of the positions with the level.
+         */
+        private final List<SearchBoard> positions = new ArrayList<>();
+
+        /**
+         * The number of the next position.
+         */
+        private int next;
+
+        /**
+         * Copy the positions and set the level.
+         *
+         * @param captured The captured positions.
+         */
+        @Setup(Level.Trial)
+        public void setUp(Positions captured) {
+            for (SearchBoard position : captured.machinePositions) {
+                SearchBoard copy = position.copy();
+                copy.setTableSize(0);
+                copy.setLevel(level);
+                positions.add(copy);
+            }
+        }
+
+        /**
+         * Get the next position.
+         *
+         * @return The position.
+         */
+        SearchBoard nextPosition() {
+            return positions.get(next++ % positions.size());
+        }
+    }
+
+    /**
+     * A search with a transposition table which is cleared before every
+     * operation, so every search of a position does the same work.
+     */
+    @State(Scope.Thread)
+    public static class ParallelSearch {
+        /**
+         * The size of the transposition table in bytes.
+         */
+        private static final long TABLE_BYTES = 4L << 20;
+
+        /**
+         * The way the search uses its pool or "SEQUENTIAL" for no pool.
+         */
+        @Param({"SEQUENTIAL", "ROOT_SPLIT", "LAZY_SMP"})
+        public String mode;
+
+        /**
+         * The number of threads of the pool.
+         */
+        @Param({"4"})
+        public int threads;
+
+        /**
+         * The depth of the search.
+         */
+        @Param({"4"})
+        public int depth;
+
+        /**
+         * The pool of the search or {@code null}.
+         */
+        private ForkJoinPool pool;
+
+        /**
+         * The transposition table of the search.
+         */
+        private TranspositionTable table;
+
+        /**
+         * The search which is reused for all positions.
+         */
+        Search search;
+
+        /**
+         * The copies of the positions which the search moves back and forth.
+         */
+        private final List<SearchBoard> positions = new ArrayList<>();
+
+        /**
+         * The number of the next position.
+         */
+        private int next;
+
+        /**
+         * Create the search and copy the positions.
+         *
+         * @param captured The captured positions.
+         */
+        @Setup(Level.Trial)
+        public void setUp(Positions captured) {
+            boolean sequential = mode.equals("SEQUENTIAL");
+            pool = sequential ? null : new ForkJoinPool(threads);
+            table = new TranspositionTable(TABLE_BYTES);
+            search = new Search(depth, SearchMode.ALPHA_BETA, table, pool,
+                    sequential ? ParallelMode.ROOT_SPLIT
+                            : ParallelMode.valueOf(mode));
+
+            for (SearchBoard position : captured.machinePositions) {
+                positions.add(position.copy());
+            }
+        }
+
+        /**
+         * Clear the table before the next search.
+         */
+        @Setup(Level.Invocation)
+        public void clearTable() {
+            table.clear();
+        }
+
+        /**
+         * Shut the pool down.
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+
+        /**
+         * Get the next position.
+         *
+         * @return The position.
+         */
+        SearchBoard nextPosition() {
+            return positions.get(next++ % positions.size());
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package abalone;
 
-import abalone.model.AbaloneBoard;
 import abalone.model.Board;
+import abalone.model.BoardType;
 import abalone.model.Color;
+import abalone.model.OpeningBook;
 import abalone.model.Player;
+import abalone.model.Ponderer;
+import abalone.model.SearchStatistics;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Paths;
 
 /**
  * Interactive shell for user input and program output.
@@ -18,6 +22,39 @@ public final class Shell {
      */
     private static int difficultyLevel = 2;
 
+    /**
+     * The time limit of a machine move in milliseconds or 0 if the machine
+     * uses the difficulty level.
+     */
+    private static long timeLimit;
+
+    /**
+     * The implementation of the board used for new games.
+     */
+    private static BoardType boardType = BoardType.ABALONE;
+
+    /**
+     * The opening book of the machine or {@code null} if it always searches.
+     */
+    private static OpeningBook book;
+
+    /**
+     * The ponderer which searches the replies of the machine while the human
+     * thinks.
+     */
+    private static final Ponderer ponderer = new Ponderer();
+
+    /**
+     * Whether the machine ponders while the human thinks.
+     */
+    private static boolean pondering;
+
+    /**
+     * The statistics of the last machine move or {@code null} if the machine
+     * has not moved yet.
+     */
+    private static SearchStatistics statistics;
+
     /**
      * Cannot instantiate utility class.
      */
@@ -27,17 +64,52 @@ public final class Shell {
     /**
      * Main method of the Abalone interactive shell.
      *
-     * @param args No arguments are used.
+     * @param args The optional name of the board implementation, which is
+     *             either "abalone" (default) or "bitboard", followed by the
+     *             optional file of an opening book and the number of moves
+     *             from the start in which the book is used.
      * @throws IOException If an I/O error occurs.
      */
     public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            try {
+                boardType = BoardType.valueOf(args[0].toUpperCase());
+            } catch (IllegalArgumentException ex) {
+                printError("Unknown board: " + args[0]);
+                return;
+            }
+        }
+
+        if (args.length > 1) {
+            Integer depth = args.length > 2 ? getInteger(args[2])
+                    : Integer.valueOf(Integer.MAX_VALUE);
+
+            if (depth == null) {
+                return;
+            } else if (depth < 0) {
+                printError("Book depth must not be negative.");
+                return;
+            }
+
+            try {
+                book = OpeningBook.open(Paths.get(args[1]), depth);
+            } catch (IOException ex) {
+                printError("Cannot open the opening book: " + ex.getMessage());
+                return;
+            }
+        }
         BufferedReader stdin
                 = new BufferedReader(new InputStreamReader(System.in));
-        Board abalone = new AbaloneBoard();
+        Board abalone = boardType.create(9, Player.HUMAN, difficultyLevel);
+        abalone.setOpeningBook(book);
         String input;
         boolean quit = false;
 
         while (!quit) {
+            // The replies are pondered while the shell waits for the human.
+            if (pondering) {
+                ponderer.start(abalone, difficultyLevel, timeLimit);
+            }
             System.out.print("abalone> ");
             input = stdin.readLine();
 
@@ -58,8 +130,16 @@ public final class Shell {
                     case 'l':
                         cmdLevel(abalone, tokens);
                         break;
+                    case 't':
+                        cmdTime(tokens);
+                        break;
                     case 's':
-                        abalone = cmdSwitch(abalone);
+                        // Stats and switch share their first letter.
+                        if (tokens[0].toLowerCase().startsWith("st")) {
+                            cmdStats();
+                        } else {
+                            abalone = cmdSwitch(abalone);
+                        }
                         break;
                     case 'b':
                         cmdBalls(abalone);
@@ -68,7 +148,12 @@ public final class Shell {
                         abalone = cmdNew(abalone, tokens);
                         break;
                     case 'p':
-                        System.out.println(abalone);
+                        // Ponder and print share their first letter.
+                        if (tokens[0].toLowerCase().startsWith("po")) {
+                            cmdPonder(tokens);
+                        } else {
+                            System.out.println(abalone);
+                        }
                         break;
                     case 'h':
                         printHelp();
@@ -181,7 +266,17 @@ public final class Shell {
         if (abalone.getNextPlayer() == Player.HUMAN) {
             System.out.println("I must skip (no possible moves).");
         } else {
-            abalone = abalone.machineMove();
+            Board reply = ponderer.getReply(abalone, difficultyLevel,
+                    timeLimit);
+
+            if (reply != null) {
+                abalone = reply;
+            } else if (timeLimit > 0) {
+                abalone = abalone.machineMove(timeLimit);
+            } else {
+                abalone = abalone.machineMove();
+            }
+            statistics = abalone.getStatistics();
 
             if (abalone.isGameOver()) {
                 printWinner(abalone);
@@ -249,7 +344,9 @@ public final class Shell {
      * @return The new abalone board.
      */
     private static Board createNewBoard(int size, Player openingPlayer) {
-        Board abalone = new AbaloneBoard(size, openingPlayer, difficultyLevel);
+        ponderer.stop();
+        Board abalone = boardType.create(size, openingPlayer, difficultyLevel);
+        abalone.setOpeningBook(book);
 
         // If the machine opens the game it now makes a move.
         if (openingPlayer == Player.MACHINE) {
@@ -283,6 +380,77 @@ public final class Shell {
         }
     }
 
+    /**
+     * Set the time limit of the machine for each move. The machine then
+     * searches as deep as the time allows instead of using the difficulty
+     * level.
+     *
+     * @param tokens A string array containing at least 2 string where the last
+     *               represents the time limit in milliseconds or 0 to use the
+     *               difficulty level again.
+     */
+    private static void cmdTime(String[] tokens) {
+        if (hasEnoughArguments(tokens, 2)) {
+            Integer time = getInteger(tokens[1]);
+
+            if (time != null) {
+                if (time < 0) {
+                    printError("Time limit must not be negative!");
+                } else {
+                    timeLimit = time;
+                }
+            }
+        }
+    }
+
+    /**
+     * Turn pondering on or off. While pondering, the machine searches its
+     * replies to the possible moves of the human while the shell waits for
+     * the next command.
+     *
+     * @param tokens A string array containing at least 2 string where the last
+     *               is either "on" or "off".
+     */
+    private static void cmdPonder(String[] tokens) {
+        if (hasEnoughArguments(tokens, 2)) {
+            if (tokens[1].equalsIgnoreCase("on")) {
+                pondering = true;
+            } else if (tokens[1].equalsIgnoreCase("off")) {
+                pondering = false;
+                ponderer.stop();
+            } else {
+                printError("Expected on or off: " + tokens[1]);
+            }
+        }
+    }
+
+    /**
+     * Print the statistics of the search of the last machine move.
+     */
+    private static void cmdStats() {
+        if (statistics == null) {
+            printError("No statistics of a machine move!");
+        } else if (statistics.isBookMove()) {
+            System.out.println("The last move was taken from the opening "
+                    + "book.");
+        } else {
+            System.out.printf("nodes: %d (%.0f/s)\n", statistics.getNodes(),
+                    statistics.getNodesPerSecond());
+            System.out.printf("time: %.1f ms\n", statistics.getTime() / 1e6);
+            System.out.printf("depth: %d\n", statistics.getDepth());
+            System.out.printf("branching factor: %.2f\n",
+                    statistics.getBranchingFactor());
+            System.out.printf("evaluations: %d\n",
+                    statistics.getEvaluations());
+            System.out.printf("cutoffs: %d\n", statistics.getCutoffs());
+            System.out.printf("table hits: %d of %d (%.1f%%)\n",
+                    statistics.getTableHits(), statistics.getTableProbes(),
+                    statistics.getTableHitRate() * 100);
+            System.out.printf("peak memory: %.1f MB\n",
+                    statistics.getPeakMemory() / (double) (1 << 20));
+        }
+    }
+
     /**
      * Print the number of balls of each color.
      *
@@ -307,9 +475,15 @@ public final class Shell {
                 + "diagonal d1 to row r2 and diagonal d2.");
         System.out.println("\tlevel l\t\t\t\tSet the difficulty level of the "
                 + "machine.");
+        System.out.println("\ttime t\t\t\t\tSet the time limit of the machine "
+                + "to t ms per move (0 uses the level).");
         System.out.println("\tballs\t\t\t\tShow the number of balls of each "
                 + "player.");
+        System.out.println("\tponder on|off\t\tSearch the replies of the "
+                + "machine while you think.");
         System.out.println("\tprint\t\t\t\tShow the abalone board.");
+        System.out.println("\tstats\t\t\t\tShow the statistics of the last "
+                + "machine move.");
         System.out.println("\thelp\t\t\t\tShow this message.");
         System.out.println("\tquit\t\t\t\tQuit the program.");
     }
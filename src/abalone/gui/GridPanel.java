@@ -2,8 +2,10 @@ package abalone.gui;
 
 import abalone.model.AbaloneBoard;
 import abalone.model.Board;
+import abalone.model.CancellationToken;
 import abalone.model.Color;
 import abalone.model.Player;
+import abalone.model.Ponderer;
 
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
@@ -31,9 +33,12 @@ public class GridPanel extends JPanel {
     private final List<SlotPanel> validTargetSlots = new LinkedList<>();
     private SlotPanel selectedSlot;
     private Board abalone;
+    private final Ponderer ponderer = new Ponderer();
     private Thread machineThread;
-    private Integer newLevel;
+    private CancellationToken machineToken;
     private int level = 2;
+    private long timeLimit;
+    private boolean pondering;
 
     /**
      * Create a new grid panel.
@@ -89,10 +94,29 @@ public class GridPanel extends JPanel {
         if (abalone.getNextPlayer() == Player.HUMAN) {
             showMessage("I must skip (no possible moves).");
         } else {
-            // Create a new thread for the machine move.
+            // Create a new thread for the machine move. The settings are
+            // read here as they can be changed while the thread is running.
+            Board current = abalone;
+            int currentLevel = level;
+            long limit = timeLimit;
+            CancellationToken token = new CancellationToken();
+            machineToken = token;
             machineThread = new Thread(() -> {
-                Board board = abalone.machineMove();
-                SwingUtilities.invokeLater(() -> machineMoveFinished(board));
+                // A pondered reply is taken if the move of the human was
+                // pondered with the same settings.
+                Board board = ponderer.getReply(current, currentLevel, limit);
+
+                if (board == null) {
+                    board = limit > 0 ? current.machineMove(limit, token)
+                            : current.machineMove(token);
+                }
+                Board next = board;
+                SwingUtilities.invokeLater(() -> {
+                    // The move of a cancelled search is dropped.
+                    if (!token.isCancelled()) {
+                        machineMoveFinished(next);
+                    }
+                });
             });
             machineThread.setPriority(Thread.MIN_PRIORITY);
             machineThread.setName("MachineMove-Thread");
@@ -108,17 +132,17 @@ public class GridPanel extends JPanel {
      */
     private void machineMoveFinished(Board abalone) {
         machineThread = null;
+        machineToken = null;
         this.abalone = abalone;
         updateAllSlots();
 
-        // If the level was changed while the thread was running we update it.
-        updateLevel();
-
         if (abalone.isGameOver()) {
             showWinner();
         } else if (abalone.getNextPlayer() == Player.MACHINE) {
             showMessage("You must skip (no possible moves).");
             machineMove();
+        } else {
+            startPondering();
         }
     }
 
@@ -168,14 +192,13 @@ public class GridPanel extends JPanel {
      */
     private void createNewBoard(int size, Player openingPlayer) {
         stopMachineThread();
-
-        // If the machine thread was running a new level could be set.
-        updateLevel();
         abalone = new AbaloneBoard(size, openingPlayer, level);
 
         // If the machine opens the game it now makes a move.
         if (openingPlayer == Player.MACHINE) {
             machineMove();
+        } else {
+            startPondering();
         }
     }
 
@@ -186,36 +209,73 @@ public class GridPanel extends JPanel {
      * @param level The new difficulty level.
      */
     public void setLevel(int level) {
-        // If the machine thread is running the difficulty level gets set when
-        // the thread finishes by calling this method again.
+        this.level = level;
+        abalone.setLevel(level);
+        updateMenuLabels();
+
+        // A running machine move is cancelled and searched again with the
+        // new difficulty level.
         if (machineThread != null) {
-            newLevel = level;
+            stopMachineThread();
+            machineMove();
         } else {
-            this.level = level;
-            abalone.setLevel(level);
-            updateMenuLabels();
+            startPondering();
         }
     }
 
     /**
-     * Update the level if a new level was set while the machine thread was
-     * running.
+     * Set the time limit of the machine for each move. The machine then
+     * searches as deep as the time allows instead of using the difficulty
+     * level. A running machine move keeps its old time limit.
+     *
+     * @param seconds The time limit in seconds or 0 to use the difficulty
+     *                level.
      */
-    private void updateLevel() {
-        if (newLevel != null) {
-            setLevel(newLevel);
-            newLevel = null;
+    public void setTimeLimit(int seconds) {
+        timeLimit = seconds * 1000L;
+        startPondering();
+    }
+
+    /**
+     * Set whether the machine searches its replies to the possible moves of
+     * the human while the human thinks. The reply to the move the human
+     * makes is then found faster.
+     *
+     * @param pondering Whether the machine ponders.
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+
+        if (pondering) {
+            startPondering();
+        } else {
+            ponderer.stop();
         }
     }
 
     /**
-     * Stop the machine thread if it is running.
+     * Start to ponder the replies of the machine if pondering is enabled and
+     * the human moves next. The pondering is restarted if the settings have
+     * changed.
+     */
+    private void startPondering() {
+        if (pondering && machineThread == null && !abalone.isGameOver()
+                && abalone.getNextPlayer() == Player.HUMAN) {
+            ponderer.start(abalone, level, timeLimit);
+        }
+    }
+
+    /**
+     * Cancel the machine thread if it is running and stop pondering. The
+     * search of the thread stops soon and its move is dropped.
      */
-    @SuppressWarnings("deprecation")
     public void stopMachineThread() {
+        ponderer.stop();
+
         if (machineThread != null) {
-            machineThread.stop();
+            machineToken.cancel();
             machineThread = null;
+            machineToken = null;
         }
     }
 
@@ -4,6 +4,7 @@ import abalone.model.Board;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -11,6 +12,7 @@ import javax.swing.JPanel;
 import javax.swing.SwingConstants;
 import java.awt.Color;
 import java.awt.GridLayout;
+import java.util.function.Consumer;
 import java.util.function.IntConsumer;
 import java.util.function.IntUnaryOperator;
 
@@ -35,9 +37,11 @@ public class MenuPanel extends JPanel {
 
         add(humanLabel);
         add(machineLabel);
-        add(makeComboBox("Level: ", 3, i -> i + 1, grid::setLevel));
-        add(makeComboBox("Size: ", 5, i -> Board.MIN_SIZE + 2 * i,
+        add(makeComboBox("Level: ", 3, 1, i -> i + 1, grid::setLevel));
+        add(makeComboBox("Time (s): ", 6, 0, i -> i, grid::setTimeLimit));
+        add(makeComboBox("Size: ", 5, 1, i -> Board.MIN_SIZE + 2 * i,
                 i -> selectedSize = i));
+        add(makeCheckBox("Ponder", grid::setPondering));
         add(makeButton("New", () -> grid.newGame(selectedSize)));
         add(makeButton("Switch", grid::switchPlayers));
         add(makeButton("Quit", frame::dispose));
@@ -56,11 +60,11 @@ public class MenuPanel extends JPanel {
 
     /**
      * Make a combobox which contains items with a prefix and an integer.
-     * The second item always gets selected by default.
      *
      * @param prefix The prefix of every item.
      * @param numberOfItems The number of selectable items which must be bigger
      *                      than 1.
+     * @param selectedIndex The index of the item which is selected by default.
      * @param numerator The function which turns the item index to the
      *                  integer of the item.
      * @param selector The consumer which gets called with the integer of the
@@ -69,6 +73,7 @@ public class MenuPanel extends JPanel {
      */
     private static JComboBox<String> makeComboBox(String prefix,
                                                   int numberOfItems,
+                                                  int selectedIndex,
                                                   IntUnaryOperator numerator,
                                                   IntConsumer selector) {
         String[] items = new String[numberOfItems];
@@ -78,7 +83,7 @@ public class MenuPanel extends JPanel {
             items[i] = prefix + numerator.applyAsInt(i);
         }
         JComboBox<String> comboBox = new JComboBox<>(items);
-        comboBox.setSelectedIndex(1);
+        comboBox.setSelectedIndex(selectedIndex);
 
         // When a new item gets selected, the selector gets called with the
         // integer of the selected item.
@@ -90,6 +95,22 @@ public class MenuPanel extends JPanel {
         return comboBox;
     }
 
+    /**
+     * Make a check box which is not selected by default.
+     *
+     * @param text The text of the check box.
+     * @param selector The consumer which gets called with the new state if
+     *                 the check box gets selected or deselected.
+     * @return The check box.
+     */
+    private static JCheckBox makeCheckBox(String text,
+                                          Consumer<Boolean> selector) {
+        JCheckBox checkBox = new JCheckBox(text);
+        checkBox.setOpaque(false);
+        checkBox.addActionListener(e -> selector.accept(checkBox.isSelected()));
+        return checkBox;
+    }
+
     /**
      * Make a button with the given clicked action.
      *
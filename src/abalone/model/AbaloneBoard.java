@@ -1,7 +1,8 @@
 package abalone.model;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -24,21 +25,22 @@ import java.util.List;
  * <li>The game may never end.
  * </ul>
  */
-public class AbaloneBoard implements Board, Cloneable {
+public class AbaloneBoard extends SearchBoard implements Board, Cloneable {
     /**
-     * Matrix containing the balls of the abalone board.
+     * The balls of the abalone board indexed by the cells of the topology.
+     * Empty cells are {@code null}.
      */
-    private Ball[][] board;
+    private Ball[] board;
 
     /**
      * List of all balls of the human player.
      */
-    private List<Ball> humanBalls = new LinkedList<>();
+    private List<Ball> humanBalls = new ArrayList<>();
 
     /**
      * List of all balls of the machine player.
      */
-    private List<Ball> machineBalls = new LinkedList<>();
+    private List<Ball> machineBalls = new ArrayList<>();
 
     /**
      * Number of balls each player has at the beginning of a match.
@@ -61,10 +63,79 @@ public class AbaloneBoard implements Board, Cloneable {
     private int difficultyLevel;
 
     /**
-     * The valid move vectors a ball has got.
+     * The algorithm the machine uses to score its game tree.
      */
-    private static final int[][] VALID_MOVE_VECTORS
-            = {{0, 1}, {1, 1}, {1, 0}, {0, -1}, {-1, -1}, {-1, 0}};
+    private SearchMode searchMode = SearchMode.ALPHA_BETA;
+
+    /**
+     * The number of positions the machine has scored for the move which
+     * created this board.
+     */
+    private long searchedNodes;
+
+    /**
+     * If the machine builds its whole game tree for debugging.
+     */
+    private boolean debugTree;
+
+    /**
+     * The game tree the machine has built for the move which created this
+     * board if tree debugging was enabled.
+     */
+    private TreeNode gameTree;
+
+    /**
+     * The cell layout of the board size which is shared by all boards of
+     * this size.
+     */
+    private Topology topology;
+
+    /**
+     * The Zobrist key of the balls on the board.
+     */
+    private long hash;
+
+    /**
+     * The sum of the distances of the balls of each player to the edge
+     * indexed by the ordinal of the player.
+     */
+    private int[] distanceSums = new int[2];
+
+    /**
+     * The runs of balls of the same owner through each cell which are used
+     * to generate the moves of the search or {@code null} until the moves of
+     * the board are generated for the first time.
+     */
+    private LineRuns runs;
+
+    /**
+     * The moves which can be undone, stored as start cell, direction, number
+     * of moved balls, list index of the pushed out ball and the ordinal of
+     * the next player before the move.
+     */
+    private int[] undoStack = new int[0];
+
+    /**
+     * The balls pushed out by the moves which can be undone or {@code null}
+     * if the move did not push out a ball.
+     */
+    private Ball[] pushedBalls = new Ball[0];
+
+    /**
+     * The number of moves which can be undone.
+     */
+    private int undoSize;
+
+    /**
+     * The number of values stored for each move on the undo stack.
+     */
+    private static final int UNDO_ENTRY = 5;
+
+    /**
+     * The players indexed by their ordinal. Unlike {@link Player#values()}
+     * it does not create a new array whenever a move gets undone.
+     */
+    private static final Player[] PLAYERS = Player.values();
 
     /**
      * Creates a new abalone board with the default size of 9, a difficulty
@@ -109,12 +180,13 @@ public class AbaloneBoard implements Board, Cloneable {
      * @param size Size of the board must be bigger or equal than 7 and odd.
      */
     private void initializeBoard(int size) {
-        board = new Ball[size][size];
+        topology = Topology.get(size);
+        board = new Ball[topology.getCells()];
 
         // Add the starting balls to the board.
         for (int row = 0; row < size; row++) {
-            for (int diag = getFirstDiag(row); diag <= getLastDiag(row);
-                 diag++) {
+            for (int diag = topology.getFirstDiag(row);
+                 diag <= topology.getLastDiag(row); diag++) {
                 Ball ball = null;
 
                 if (row <= 1 || row == 2 && diag >= 2
@@ -127,7 +199,11 @@ public class AbaloneBoard implements Board, Cloneable {
                             row, diag);
                     machineBalls.add(ball);
                 }
-                board[row][diag] = ball;
+                if (ball != null) {
+                    int cell = topology.getCell(row, diag);
+                    board[cell] = ball;
+                    enterSlot(ball, cell);
+                }
             }
         }
 
@@ -168,55 +244,40 @@ public class AbaloneBoard implements Board, Cloneable {
      * possible.
      */
     private void setNextPlayer() {
-        for (Ball ball : getListOfBalls(nextPlayer.other())) {
-            if (!getPossibleMoves(ball).isEmpty()) {
-                nextPlayer = nextPlayer.other();
-                return;
-            }
+        if (hasPossibleMove(nextPlayer.other())) {
+            nextPlayer = nextPlayer.other();
         }
     }
 
     /**
-     * {@inheritDoc}
+     * Checks if the given player can make at least one move. The slots are
+     * scanned directly and the check stops at the first valid move, so no
+     * moves get created.
+     *
+     * @param player The player.
+     * @return {@code true} iff the player has got a possible move.
      */
-    @Override
-    public boolean isValidPosition(int row, int diag) {
-        boolean isValidRow = 0 <= row && row < getSize();
-        boolean isValidDiag = getFirstDiag(row) <= diag
-                && diag <= getLastDiag(row);
-        return isValidRow && isValidDiag;
+    private boolean hasPossibleMove(Player player) {
+        for (int cell = 0; cell < topology.getCells(); cell++) {
+            Ball ball = board[cell];
+
+            if (ball != null && ball.getOwner() == player) {
+                for (int dir = 0; dir < PackedMove.DIRECTIONS; dir++) {
+                    if (getMove(cell, dir) != PackedMove.NONE) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public boolean isValidTarget(int row, int diag) {
-        boolean isValidRow = -1 <= row && row <= getSize();
-        boolean isValidDiag = getFirstDiag(row) - 1 <= diag
-                && diag <= getLastDiag(row) + 1;
-        return isValidRow && isValidDiag;
-    }
-
-    /**
-     * Get the first valid diagonal index in the matrix for the given row.
-     *
-     * @param row The row to compute the first diagonal index.
-     * @return The first diagonal index.
-     */
-    private int getFirstDiag(int row) {
-        return Math.max(0, row - getSize() / 2);
-    }
-
-    /**
-     * Get the last valid diagonal index in the matrix for the given row.
-     *
-     * @param row The row to compute the last diagonal index.
-     * @return The last diagonal index.
-     */
-    private int getLastDiag(int row) {
-        int size = getSize();
-        return Math.min(row + size / 2, size - 1);
+    Topology getTopology() {
+        return topology;
     }
 
     /**
@@ -233,11 +294,14 @@ public class AbaloneBoard implements Board, Cloneable {
         } else if (!isValidTarget(rowTo, diagTo)) {
             throw new IllegalArgumentException("Invalid target coordinates!");
         } else {
-            Move move = new Move(rowFrom, diagFrom, rowTo, diagTo);
-            Ball ball = board[rowFrom][diagFrom];
+            int cell = topology.getCell(rowFrom, diagFrom);
+            int dir = Topology.getDirection(rowTo - rowFrom,
+                    diagTo - diagFrom);
+            Ball ball = board[cell];
+            int move = dir < 0 ? PackedMove.NONE : getMove(cell, dir);
 
             if (ball != null && ball.getOwner() == Player.HUMAN
-                    && isValidMove(move)) {
+                    && move != PackedMove.NONE) {
                 return executeMove(move);
             } else {
                 return null;
@@ -250,31 +314,123 @@ public class AbaloneBoard implements Board, Cloneable {
      */
     @Override
     public Board machineMove() {
+        return machineMove((CancellationToken) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The game tree of the debug mode is always built completely.
+     */
+    @Override
+    public Board machineMove(CancellationToken token) {
         if (isGameOver()) {
             throw new IllegalStateException("Game is already over!");
         } else if (nextPlayer != Player.MACHINE) {
             throw new IllegalStateException("It is the human's turn!");
+        } else if (debugTree) {
+            return machineMoveWithTree();
         } else {
-            TreeNode root = new TreeNode(null);
-            buildGameTree(root, 0);
+            MachineMoveEvent event = new MachineMoveEvent();
+            event.begin();
+            int move = getBookMove();
+            AbaloneBoard board;
+
+            if (move != PackedMove.NONE) {
+                board = executeMove(move);
+                board.searchedNodes = 0;
+                board.statistics = SearchStatistics.BOOK_MOVE;
+            } else {
+                Search search = createSearch(difficultyLevel, searchMode);
 
-            // Use infinity to make sure the first move overwrites this
-            // variable.
-            double bestScore = Double.NEGATIVE_INFINITY;
-            Move bestMove = null;
+                // The search moves the balls of a copy back and forth.
+                move = search.findBestMove(clone(), token);
+                board = executeMove(move);
+                board.searchedNodes = search.getNodes();
+                board.statistics = search.getStatistics();
+            }
+            commitMachineMove(event, difficultyLevel, 0, token, move, board);
+            return board;
+        }
+    }
 
-            // Get the child of the root with the highest score and execute its
-            // move.
-            for (TreeNode child : root.getChildren()) {
-                double childScore = child.getScore();
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Board machineMove(long timeLimit) {
+        return machineMove(timeLimit, null);
+    }
 
-                if (childScore > bestScore) {
-                    bestScore = childScore;
-                    bestMove = child.getMove();
-                }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Board machineMove(long timeLimit, CancellationToken token) {
+        if (timeLimit < 1) {
+            throw new IllegalArgumentException("Time limit must be bigger than "
+                    + "0!");
+        } else if (isGameOver()) {
+            throw new IllegalStateException("Game is already over!");
+        } else if (nextPlayer != Player.MACHINE) {
+            throw new IllegalStateException("It is the human's turn!");
+        } else {
+            MachineMoveEvent event = new MachineMoveEvent();
+            event.begin();
+            int move = getBookMove();
+            AbaloneBoard board;
+
+            if (move != PackedMove.NONE) {
+                board = executeMove(move);
+                board.searchedNodes = 0;
+                board.statistics = SearchStatistics.BOOK_MOVE;
+            } else {
+                Search search = createSearch(Search.MAX_DEPTH, searchMode);
+
+                // The search moves the balls of a copy back and forth.
+                move = search.findBestMove(clone(), timeLimit, token);
+                board = executeMove(move);
+                board.searchedNodes = search.getNodes();
+                board.statistics = search.getStatistics();
+            }
+            commitMachineMove(event, difficultyLevel, timeLimit, token, move,
+                    board);
+            return board;
+        }
+    }
+
+    /**
+     * Executes a machine move by building the game tree and choosing the move
+     * of the best child of the root. The tree is kept in the new board.
+     *
+     * @return A new board with the move executed.
+     */
+    private AbaloneBoard machineMoveWithTree() {
+        TreeNode root = new TreeNode(null);
+        long nodes = buildGameTree(root, 0, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY);
+
+        // Use infinity to make sure the first move overwrites this
+        // variable.
+        double bestScore = Double.NEGATIVE_INFINITY;
+        Move bestMove = null;
+
+        // Get the child of the root with the highest score and execute its
+        // move. A child cut off by alpha-beta has a score which is not
+        // higher than the best score before it, so it never gets chosen.
+        for (TreeNode child : root.getChildren()) {
+            double childScore = child.getScore();
+
+            if (childScore > bestScore) {
+                bestScore = childScore;
+                bestMove = child.getMove();
             }
-            return executeMove(bestMove);
         }
+        AbaloneBoard board = executeMove(bestMove);
+        board.searchedNodes = nodes;
+        board.gameTree = root;
+        return board;
     }
 
     /**
@@ -282,12 +438,23 @@ public class AbaloneBoard implements Board, Cloneable {
      * the current abalone game is not over.
      * Also set the score of the parent node while the game tree is build.
      *
+     * <p>
+     * In alpha-beta mode the remaining children are skipped as soon as the
+     * score of the parent lies outside the window of alpha and beta. The score
+     * of the parent is then only a bound of its minimax score (fail-soft),
+     * which is enough for the caller to know that this node does not change
+     * its own score.
+     *
      * @param parent The node to add the children.
      * @param height The height of the parent node in the tree.
+     * @param alpha The score the machine is already assured of.
+     * @param beta The score the human is already assured of.
+     * @return The number of positions scored in this subtree.
      */
-    private void buildGameTree(TreeNode parent, int height) {
-        double score = getSize() * getDifferenceScore() + getPositionScore()
-                + getWinnerScore(height);
+    private long buildGameTree(TreeNode parent, int height, double alpha,
+                               double beta) {
+        double score = getScore(height);
+        long nodes = 1;
 
         // Create all child nodes if the maximum height is not yet reached and
         // the current abalone game is not over.
@@ -297,30 +464,56 @@ public class AbaloneBoard implements Board, Cloneable {
             double bestChildScore = nextPlayer == Player.HUMAN
                     ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
 
-            for (Ball ball : getListOfBalls(nextPlayer)) {
-                for (Move move : getPossibleMoves(ball)) {
-                    // Recursively build the game tree.
-                    AbaloneBoard child = executeMove(move);
-                    TreeNode node = new TreeNode(move);
-                    child.buildGameTree(node, height + 1);
-
-                    // After the subtree of the child node has been built the
-                    // child score can be accessed.
-                    double childScore = node.getScore();
-
-                    // Get the best child score for the machine with the Minimax
-                    // algorithm.
-                    if (nextPlayer == Player.HUMAN) {
-                        bestChildScore = Math.min(bestChildScore, childScore);
-                    } else {
-                        bestChildScore = Math.max(bestChildScore, childScore);
-                    }
-                    parent.addChild(node);
+            // The score of this position gets added to the best child score,
+            // so the window of the children is shifted by it and widened by
+            // the margin of the search.
+            double childAlpha = alpha - score - Search.MARGIN;
+            double childBeta = beta - score + Search.MARGIN;
+
+            int[] moves = new int[getMoveCapacity()];
+            int count = getPossibleMoves(nextPlayer, moves);
+
+            for (int i = 0; i < count; i++) {
+                // Recursively build the game tree.
+                AbaloneBoard child = executeMove(moves[i]);
+                TreeNode node = new TreeNode(topology.toMove(moves[i]));
+                nodes += child.buildGameTree(node, height + 1, childAlpha,
+                        childBeta);
+
+                // After the subtree of the child node has been built the
+                // child score can be accessed.
+                double childScore = node.getScore();
+
+                // Get the best child score for the machine with the Minimax
+                // algorithm.
+                if (nextPlayer == Player.HUMAN) {
+                    bestChildScore = Math.min(bestChildScore, childScore);
+                    childBeta = Math.min(childBeta, bestChildScore);
+                } else {
+                    bestChildScore = Math.max(bestChildScore, childScore);
+                    childAlpha = Math.max(childAlpha, bestChildScore);
+                }
+                parent.addChild(node);
+
+                // The player before would never allow this position.
+                if (searchMode == SearchMode.ALPHA_BETA
+                        && childAlpha >= childBeta) {
+                    break;
                 }
             }
             score += bestChildScore;
         }
         parent.setScore(score);
+        return nodes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    double getScore(int height) {
+        return getSize() * getDifferenceScore() + getPositionScore()
+                + getWinnerScore(height);
     }
 
     /**
@@ -355,50 +548,32 @@ public class AbaloneBoard implements Board, Cloneable {
 
     /**
      * Get the score of the abalone board based on the position of each ball.
+     * The distance sums are kept up to date by every move.
      *
      * @return The score.
      */
     private double getPositionScore() {
-        return getDistanceSum(Player.MACHINE) - 1.5
-                * getDistanceSum(Player.HUMAN);
+        return distanceSums[Player.MACHINE.ordinal()] - 1.5
+                * distanceSums[Player.HUMAN.ordinal()];
     }
 
     /**
-     * Get the sum of the distances of each ball of the given player to the edge
-     * of the abalone board.
+     * Get the move of the ball in the given cell into the given direction if
+     * it is possible on this board. The owner of the moved ball is ignored.
+     * The slot of a packed move is the cell of the ball in the topology.
      *
-     * @param player The player to compute the sum.
-     * @return The sum of the distances of the balls of the given player.
+     * @param cell The cell of the moved ball.
+     * @param dir The direction of the move.
+     * @return The packed move or {@link PackedMove#NONE} if the move is not
+     *         possible.
      */
-    private int getDistanceSum(Player player) {
-        int size = getSize();
-        int sum = 0;
-
-        for (Ball ball : getListOfBalls(player)) {
-            sum += ball.distToEdge(size);
-        }
-        return sum;
-    }
+    private int getMove(int cell, int dir) {
+        int[] neighbours = topology.getNeighbours();
+        Ball ball = board[cell];
 
-    /**
-     * Checks if this move operation is possible on the given board.
-     * The owner of the moved ball is ignored.
-     *
-     * @param move The move which should be executed on the board.
-     * @return {@code true} iff this move operation is possible.
-     */
-    private boolean isValidMove(Move move) {
-        int row = move.getRowFrom();
-        int diag = move.getDiagFrom();
-        int rowDiff = move.getRowTo() - row;
-        int diagDiff = move.getDiagTo() - diag;
-        Ball ball = board[row][diag];
-
-        // Check if the target slot is next to the current slot.
         // If the current slot is emtpy the move is invalid.
-        if (Math.abs(rowDiff) > 1 || Math.abs(diagDiff) > 1
-                || rowDiff + diagDiff == 0 || ball == null) {
-            return false;
+        if (ball == null) {
+            return PackedMove.NONE;
         }
 
         Color initialColor = ball.getColor();
@@ -406,16 +581,16 @@ public class AbaloneBoard implements Board, Cloneable {
         int colorChanges = 0;
         int blackCounter = initialColor == Color.BLACK ? 1 : 0;
         int whiteCounter = initialColor == Color.WHITE ? 1 : 0;
+        int next = cell;
 
         // Count the color changes and the number of balls of each color from
         // the start ball along the directional vector until there is a free
         // slot.
         do {
-            row += rowDiff;
-            diag += diagDiff;
+            next = neighbours[next * PackedMove.DIRECTIONS + dir];
 
-            if (isValidPosition(row, diag)) {
-                ball = board[row][diag];
+            if (next != Topology.OFF_BOARD) {
+                ball = board[next];
 
                 if (ball != null) {
                     Color color = ball.getColor();
@@ -439,54 +614,212 @@ public class AbaloneBoard implements Board, Cloneable {
         // There must be more balls with the initial color than with the enemy
         // color to make a valid move and only one or no color change is
         // allowed.
-        return !((initialColor == Color.BLACK && blackCounter <= whiteCounter)
+        if ((initialColor == Color.BLACK && blackCounter <= whiteCounter)
                 || (initialColor == Color.WHITE && whiteCounter <= blackCounter)
-                || colorChanges > 1);
+                || colorChanges > 1) {
+            return PackedMove.NONE;
+        } else {
+            // The line ends outside of the board if a ball gets pushed out.
+            return PackedMove.pack(cell, dir, colorChanges == 1
+                    && next == Topology.OFF_BOARD);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    AbaloneBoard executeMove(int move) {
+        AbaloneBoard clone = clone();
+        clone.makeMove(move);
+        return clone;
     }
 
     /**
-     * Executes a move on a clone of the given board without checking if the
-     * move is valid.
+     * Executes a move of a node of the game tree on a clone of the board.
      *
      * @param move The move to execute.
      * @return A clone of the current board with the executed move.
      */
     private AbaloneBoard executeMove(Move move) {
-        AbaloneBoard clone = clone();
         int row = move.getRowFrom();
         int diag = move.getDiagFrom();
-        int rowDiff = move.getRowTo() - row;
-        int diagDiff = move.getDiagTo() - diag;
+        return executeMove(getMove(topology.getCell(row, diag),
+                Topology.getDirection(move.getRowTo() - row,
+                        move.getDiagTo() - diag)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void makeMove(int move) {
+        int[] rows = topology.getRows();
+        int[] diags = topology.getDiags();
+        int[] neighbours = topology.getNeighbours();
+        int start = PackedMove.getSlot(move);
+        int dir = PackedMove.getDirection(move);
+        int cell = start;
+        int previousCell = Topology.OFF_BOARD;
+        int movedBalls = 0;
+        int pushedIndex = -1;
         Ball previousBall = null;
         Ball ball;
 
         // Move all balls in one direction.
         do {
-            ball = clone.board[row][diag];
-            clone.board[row][diag] = previousBall;
+            ball = board[cell];
+            board[cell] = previousBall;
 
             // Update the coordinates of the ball to represent its new place.
             if (previousBall != null) {
-                previousBall.setRow(row);
-                previousBall.setDiag(diag);
+                leaveSlot(previousBall, previousCell);
+                previousBall.setRow(rows[cell]);
+                previousBall.setDiag(diags[cell]);
+                enterSlot(previousBall, cell);
             }
+            updateRuns(cell, previousBall);
 
             // Repeat until a slot is emtpy and ball is null.
             if (ball != null) {
                 previousBall = ball;
-                row += rowDiff;
-                diag += diagDiff;
+                previousCell = cell;
+                cell = neighbours[cell * PackedMove.DIRECTIONS + dir];
+                movedBalls++;
             }
-        } while (clone.isValidPosition(row, diag) && ball != null);
+        } while (cell != Topology.OFF_BOARD && ball != null);
 
         // The current position is not valid any more and the previous ball is
         // not in the board anymore so it needs to be removed from the the
-        // corresponding list.
-        if (previousBall != null && !clone.isValidPosition(row, diag)) {
-            clone.getListOfBalls(previousBall.getOwner()).remove(previousBall);
+        // corresponding list. Its index is kept to restore the list order.
+        if (previousBall != null && cell == Topology.OFF_BOARD) {
+            List<Ball> balls = getListOfBalls(previousBall.getOwner());
+            pushedIndex = balls.indexOf(previousBall);
+            balls.remove(pushedIndex);
+            leaveSlot(previousBall, previousCell);
+        } else {
+            previousBall = null;
         }
-        clone.setNextPlayer();
-        return clone;
+        pushUndo(start, dir, movedBalls, pushedIndex, previousBall);
+        setNextPlayer();
+    }
+
+    /**
+     * Push a move on the undo stack.
+     *
+     * @param cell The cell of the moved ball.
+     * @param dir The direction of the move.
+     * @param movedBalls The number of balls the move has moved.
+     * @param pushedIndex The list index of the pushed out ball or -1.
+     * @param pushedBall The pushed out ball or {@code null}.
+     */
+    private void pushUndo(int cell, int dir, int movedBalls, int pushedIndex,
+                          Ball pushedBall) {
+        if (undoSize == pushedBalls.length) {
+            int capacity = 2 * undoSize + 8;
+            undoStack = Arrays.copyOf(undoStack, capacity * UNDO_ENTRY);
+            pushedBalls = Arrays.copyOf(pushedBalls, capacity);
+        }
+        int base = undoSize * UNDO_ENTRY;
+        undoStack[base] = cell;
+        undoStack[base + 1] = dir;
+        undoStack[base + 2] = movedBalls;
+        undoStack[base + 3] = pushedIndex;
+        undoStack[base + 4] = nextPlayer.ordinal();
+        pushedBalls[undoSize++] = pushedBall;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void unmakeMove() {
+        int[] rows = topology.getRows();
+        int[] diags = topology.getDiags();
+        int[] neighbours = topology.getNeighbours();
+        int base = --undoSize * UNDO_ENTRY;
+        int cell = undoStack[base];
+        int dir = undoStack[base + 1];
+        int movedBalls = undoStack[base + 2];
+        int pushedIndex = undoStack[base + 3];
+        Ball pushedBall = pushedBalls[undoSize];
+        pushedBalls[undoSize] = null;
+        nextPlayer = PLAYERS[undoStack[base + 4]];
+
+        // Move every ball back by one slot starting with the first one.
+        for (int i = 0; i < movedBalls; i++) {
+            int next = neighbours[cell * PackedMove.DIRECTIONS + dir];
+            Ball ball;
+
+            if (i == movedBalls - 1 && pushedBall != null) {
+                // The last ball comes back from outside of the board.
+                ball = pushedBall;
+                getListOfBalls(ball.getOwner()).add(pushedIndex, ball);
+            } else {
+                ball = board[next];
+                board[next] = null;
+                leaveSlot(ball, next);
+            }
+            board[cell] = ball;
+            ball.setRow(rows[cell]);
+            ball.setDiag(diags[cell]);
+            enterSlot(ball, cell);
+            updateRuns(cell, ball);
+            cell = next;
+        }
+
+        // The slot of the last ball is empty unless it got pushed out.
+        if (pushedBall == null) {
+            updateRuns(cell, null);
+        }
+    }
+
+    /**
+     * Update the runs of a cell if they have been built.
+     *
+     * @param cell The cell.
+     * @param ball The new ball of the cell or {@code null} if it is empty.
+     */
+    private void updateRuns(int cell, Ball ball) {
+        if (runs == null) {
+            return;
+        } else if (ball == null) {
+            runs.clear(cell);
+        } else {
+            runs.setOwner(cell, ball.getOwner().ordinal());
+        }
+    }
+
+    /**
+     * Update the hash and the distance sum when a ball enters a cell.
+     *
+     * @param ball The ball.
+     * @param cell The cell of the ball.
+     */
+    private void enterSlot(Ball ball, int cell) {
+        int owner = ball.getOwner().ordinal();
+        hash ^= topology.getKeys()[cell * 2 + owner];
+        distanceSums[owner] += topology.getDistances()[cell];
+    }
+
+    /**
+     * Update the hash and the distance sum when a ball leaves a cell.
+     *
+     * @param ball The ball.
+     * @param cell The cell of the ball.
+     */
+    private void leaveSlot(Ball ball, int cell) {
+        int owner = ball.getOwner().ordinal();
+        hash ^= topology.getKeys()[cell * 2 + owner];
+        distanceSums[owner] -= topology.getDistances()[cell];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    long getHash() {
+        return nextPlayer == Player.HUMAN ? hash ^ Zobrist.HUMAN_TO_MOVE : hash;
     }
 
     /**
@@ -501,6 +834,49 @@ public class AbaloneBoard implements Board, Cloneable {
         }
     }
 
+    /**
+     * Sets the algorithm the machine uses to score its game tree. Both
+     * algorithms choose the same move.
+     *
+     * @param searchMode The search mode.
+     */
+    public void setSearchMode(SearchMode searchMode) {
+        this.searchMode = searchMode;
+    }
+
+    /**
+     * Sets if the machine builds its whole game tree of {@link TreeNode}s.
+     * The tree keeps every scored position until the move is chosen, so this
+     * is meant for debugging only.
+     *
+     * @param debugTree If the game tree gets built.
+     */
+    public void setDebugTree(boolean debugTree) {
+        this.debugTree = debugTree;
+    }
+
+    /**
+     * Gets the game tree the machine has built for the move which created
+     * this board.
+     *
+     * @return The root of the game tree or {@code null} if tree debugging was
+     *         disabled or the last move was not made by the machine.
+     */
+    public TreeNode getGameTree() {
+        return gameTree;
+    }
+
+    /**
+     * Gets the number of positions the machine has scored for the move which
+     * created this board.
+     *
+     * @return The number of scored positions or 0 if the last move was not
+     *         made by the machine.
+     */
+    public long getSearchedNodes() {
+        return searchedNodes;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -548,7 +924,7 @@ public class AbaloneBoard implements Board, Cloneable {
         if (!isValidPosition(row, diag)) {
             throw new IllegalArgumentException("Invalid coordinates!");
         } else {
-            Ball ball = board[row][diag];
+            Ball ball = board[topology.getCell(row, diag)];
 
             if (ball == null) {
                 return Color.NONE;
@@ -563,7 +939,7 @@ public class AbaloneBoard implements Board, Cloneable {
      */
     @Override
     public int getSize() {
-        return board.length;
+        return topology.getSize();
     }
 
     /**
@@ -577,60 +953,73 @@ public class AbaloneBoard implements Board, Cloneable {
     }
 
     /**
-     * Get a list of possible moves of a ball.
-     *
-     * @param ball The ball to be moved.
-     * @return A list with valid moves.
+     * {@inheritDoc}
      */
-    private List<Move> getPossibleMoves(Ball ball) {
-        int row = ball.getRow();
-        int diag = ball.getDiag();
-        List<Move> moves = new LinkedList<>();
+    @Override
+    int getPossibleMoves(Player player, int[] moves) {
+        List<Ball> balls = getListOfBalls(player);
+        int count = 0;
+        ensureRuns();
+
+        // The list is indexed to generate the moves without an iterator.
+        for (int i = 0; i < balls.size(); i++) {
+            Ball ball = balls.get(i);
+            int cell = topology.getCell(ball.getRow(), ball.getDiag());
 
-        for (int[] vector : VALID_MOVE_VECTORS) {
-            Move move = new Move(row, diag, row + vector[0], diag + vector[1]);
+            for (int dir = 0; dir < PackedMove.DIRECTIONS; dir++) {
+                int move = runs.getMove(cell, dir);
 
-            if (isValidMove(move)) {
-                moves.add(move);
+                if (move != PackedMove.NONE) {
+                    moves[count++] = move;
+                }
             }
         }
-        return moves;
+        return count;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public String toString() {
-        int size = getSize();
-        StringBuilder sb = new StringBuilder();
+    int getPackedMove(int cell, int dir) {
+        if (board[cell] == null || board[cell].getOwner() != nextPlayer) {
+            return PackedMove.NONE;
+        }
+
+        // A single move is checked faster by walking its line than by
+        // building and updating the runs.
+        return getMove(cell, dir);
+    }
 
-        for (int row = size - 1; row >= 0; row--) {
-            int indentation = Math.abs(row - size / 2);
-            int spaceCounter = 0;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    int getCell(Player player, int index) {
+        int remaining = index;
 
-            // Add indentation in front.
-            for (int i = 0; i < indentation; i++) {
-                sb.append(' ');
+        for (int cell = 0; cell < board.length; cell++) {
+            if (board[cell] != null && board[cell].getOwner() == player
+                    && remaining-- == 0) {
+                return cell;
             }
+        }
+        return Topology.OFF_BOARD;
+    }
 
-            // Append the content of the row.
-            for (int diag = getFirstDiag(row); diag <= getLastDiag(row);
-                 diag++) {
-                sb.append(getSlot(row, diag));
+    /**
+     * Build the runs of the board if its moves have not been generated yet.
+     */
+    private void ensureRuns() {
+        if (runs == null) {
+            runs = new LineRuns(topology);
 
-                // Only append a space if there are following slots.
-                if (++spaceCounter < size - indentation) {
-                    sb.append(' ');
+            for (int cell = 0; cell < board.length; cell++) {
+                if (board[cell] != null) {
+                    runs.setOwner(cell, board[cell].getOwner().ordinal());
                 }
             }
-
-            // Only append a newline if there are following rows.
-            if (row > 0) {
-                sb.append('\n');
-            }
         }
-        return sb.toString();
     }
 
     /**
@@ -647,13 +1036,32 @@ public class AbaloneBoard implements Board, Cloneable {
         } catch (CloneNotSupportedException ex) {
             throw new AssertionError(ex);
         }
-        int size = getSize();
-        abalone.board = new Ball[size][size];
+        abalone.board = new Ball[board.length];
         abalone.humanBalls = abalone.cloneBalls(humanBalls);
         abalone.machineBalls = abalone.cloneBalls(machineBalls);
+        abalone.distanceSums = distanceSums.clone();
+
+        // The copy builds its own runs when its moves are generated.
+        abalone.runs = null;
+
+        // The statistics belong to the move which created this board.
+        abalone.statistics = null;
+
+        // The moves of this board cannot be undone on the copy.
+        abalone.undoStack = new int[0];
+        abalone.pushedBalls = new Ball[0];
+        abalone.undoSize = 0;
         return abalone;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    SearchBoard copy() {
+        return clone();
+    }
+
     /**
      * Clone the given list of balls and add them to a new list.
      * Also add the cloned balls to the correct position of the given board.
@@ -662,12 +1070,12 @@ public class AbaloneBoard implements Board, Cloneable {
      * @return New list of cloned balls.
      */
     private List<Ball> cloneBalls(List<Ball> oldBalls) {
-        List<Ball> balls = new LinkedList<>();
+        List<Ball> balls = new ArrayList<>(oldBalls.size());
 
         for (Ball oldBall : oldBalls) {
             Ball ball = oldBall.clone();
             balls.add(ball);
-            board[ball.getRow()][ball.getDiag()] = ball;
+            board[topology.getCell(ball.getRow(), ball.getDiag())] = ball;
         }
         return balls;
     }
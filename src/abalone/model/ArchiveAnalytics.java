@@ -0,0 +1,697 @@
+package abalone.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Statistics of archives of game record files, as they are written by
+ * {@link GameRecordWriter}. The files are scanned in parallel piece by piece,
+ * so archives larger than the memory can be read.
+ *
+ * <p>
+ * One thread walks the record headers of a file in a mapped window and cuts
+ * the file into chunks of whole records, which are counted by a pool of
+ * threads while the walk goes on. Every thread of the pool reads its chunks
+ * into its own direct buffer, which is reused for all chunks, and adds to
+ * its own statistics, which are merged at the end. The games are replayed on
+ * a board of the thread, whose moves are undone after every game, so no
+ * objects are created per game or chunk.
+ *
+ * <p>
+ * The statistics are the wins by board size and opening player, the
+ * distribution of the game lengths, the moves at which balls are pushed off
+ * the board and the most frequent first moves.
+ *
+ * <p>
+ * Usage: {@code java abalone.model.ArchiveAnalytics [options] file...}. The
+ * options are
+ * <ul>
+ * <li>{@code -j <threads>}: the number of threads which count the games,
+ * the number of processors by default.
+ * <li>{@code -t <moves>}: the number of most frequent first moves which are
+ * printed, 5 by default.
+ * </ul>
+ */
+public final class ArchiveAnalytics {
+    /**
+     * The length of a chunk in bytes after which it is cut at the next
+     * record.
+     */
+    private static final int CHUNK_SIZE = 8 << 20;
+
+    /**
+     * The initial capacity of the buffer of a thread into which it reads its
+     * chunks. A chunk is longer than the chunk size by the part of its last
+     * record which crosses it.
+     */
+    private static final int BUFFER_SIZE = 2 * CHUNK_SIZE;
+
+    /**
+     * The length of the mapped window in which the headers are walked.
+     */
+    private static final int WINDOW_SIZE = 64 << 20;
+
+    /**
+     * The number of moves of a bucket of the move distributions.
+     */
+    private static final int BUCKET_SIZE = 10;
+
+    /**
+     * The number of buckets of the move distributions. The last one holds
+     * all longer games.
+     */
+    private static final int BUCKETS = 100;
+
+    /**
+     * The number of board sizes a record can have.
+     */
+    private static final int SIZES = 256;
+
+    /**
+     * The number of results a record can have.
+     */
+    private static final int RESULTS = Player.values().length + 1;
+
+    /**
+     * The number of threads which count the games.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The number of most frequent first moves which are printed.
+     */
+    private int topMoves = 5;
+
+    /**
+     * The files of the archive.
+     */
+    private final List<Path> files = new ArrayList<>();
+
+    /**
+     * The statistics of all threads of the pool.
+     */
+    private final List<Statistics> statistics
+            = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * The statistics of the current thread of the pool.
+     */
+    private final ThreadLocal<Statistics> localStatistics
+            = ThreadLocal.withInitial(() -> {
+                Statistics local = new Statistics();
+                statistics.add(local);
+                return local;
+            });
+
+    /**
+     * Cannot instantiate the analytics outside of this class.
+     */
+    private ArchiveAnalytics() {
+    }
+
+    /**
+     * Main method of the analytics.
+     *
+     * @param args The options and the files of the archive.
+     */
+    public static void main(String[] args) {
+        ArchiveAnalytics analytics = new ArchiveAnalytics();
+
+        try {
+            analytics.parse(args);
+        } catch (IllegalArgumentException
+                | ArrayIndexOutOfBoundsException ex) {
+            System.out.println("Error! Invalid arguments. " + ex.getMessage());
+            return;
+        }
+
+        try {
+            analytics.run();
+        } catch (IOException | IllegalArgumentException ex) {
+            System.out.println("Error! " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Parse the options and the files.
+     *
+     * @param args The options and the files.
+     * @throws IllegalArgumentException If an option is not valid.
+     */
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-j":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-t":
+                    topMoves = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    files.add(Paths.get(args[i]));
+                    break;
+            }
+        }
+
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No files given.");
+        } else if (threads < 1 || topMoves < 0) {
+            throw new IllegalArgumentException("Numbers must be positive.");
+        }
+    }
+
+    /**
+     * Count the games of all files and print the statistics.
+     *
+     * @throws IOException If a file cannot be read or is no record file.
+     * @throws IllegalArgumentException If a record is not valid.
+     */
+    private void run() throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Semaphore pending = new Semaphore(2 * threads);
+        long start = System.nanoTime();
+        long bytes = 0;
+
+        try {
+            for (Path file : files) {
+                bytes += scan(file, pool, pending);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) ex.getCause();
+            } else if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        Statistics total = new Statistics();
+
+        for (Statistics local : statistics) {
+            total.merge(local);
+        }
+        total.print(topMoves);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format(Locale.ROOT,
+                "time %.1f s, %.0f games/s, %.1f MB/s", seconds,
+                total.games / seconds, bytes / seconds / 1e6));
+    }
+
+    /**
+     * Walk the record headers of a file, submit its chunks to the pool and
+     * wait until they are counted, since the pool reads them from the
+     * channel of the file.
+     *
+     * @param file The file.
+     * @param pool The pool which counts the chunks.
+     * @param pending The permits of the chunks which may wait in the pool.
+     * @return The length of the file.
+     * @throws IOException If the file cannot be read or is no record file.
+     * @throws InterruptedException If the thread is interrupted while the
+     *                              pool is busy.
+     * @throws ExecutionException If a chunk cannot be read or counted.
+     */
+    private long scan(Path file, ExecutorService pool, Semaphore pending)
+            throws IOException, InterruptedException, ExecutionException {
+        List<Future<?>> chunks = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+
+            if (fileSize < RecordFormat.FILE_HEADER_SIZE) {
+                throw new IOException("Not a game record file: " + file);
+            }
+            MappedByteBuffer window = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0,
+                    Math.min(WINDOW_SIZE, fileSize));
+            long windowStart = 0;
+
+            if (window.getInt(0) != RecordFormat.MAGIC
+                    || (window.get(4) & 0xFF) != RecordFormat.VERSION) {
+                throw new IOException("Not a game record file: " + file);
+            }
+            long chunkStart = RecordFormat.FILE_HEADER_SIZE;
+            long position = chunkStart;
+
+            while (position < fileSize) {
+                if (position + RecordFormat.HEADER_SIZE > fileSize) {
+                    throw new IOException("Truncated record in " + file);
+                } else if (position + RecordFormat.HEADER_SIZE
+                        > windowStart + window.limit()) {
+                    windowStart = position;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY,
+                            windowStart, Math.min(WINDOW_SIZE,
+                                    fileSize - windowStart));
+                }
+                int offset = (int) (position - windowStart);
+                int size = window.get(offset) & 0xFF;
+                int moveCount = window.getInt(offset + 5);
+                position += RecordFormat.HEADER_SIZE + (long) moveCount
+                        * RecordFormat.getMoveWidth(size);
+
+                if (moveCount < 0 || position > fileSize) {
+                    throw new IOException("Truncated record in " + file);
+                } else if (position - chunkStart >= CHUNK_SIZE
+                        || position == fileSize) {
+                    if (position - chunkStart > Integer.MAX_VALUE) {
+                        throw new IOException("Record too long in " + file);
+                    }
+                    long start = chunkStart;
+                    int length = (int) (position - chunkStart);
+                    pending.acquire();
+                    chunks.add(pool.submit(() -> {
+                        try {
+                            localStatistics.get().add(channel, start,
+                                    length);
+                            return null;
+                        } finally {
+                            pending.release();
+                        }
+                    }));
+                    chunkStart = position;
+                }
+            }
+
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+            return fileSize;
+        }
+    }
+
+    /**
+     * Get the share of a count in percent.
+     *
+     * @param count The count.
+     * @param total The total count.
+     * @return The share or 0 if the total is 0.
+     */
+    private static double percent(long count, long total) {
+        return total == 0 ? 0 : 100.0 * count / total;
+    }
+
+    /**
+     * The statistics of the games counted by one thread. The boards on which
+     * the games are replayed are kept for the next games.
+     */
+    private static final class Statistics {
+        /**
+         * The number of games.
+         */
+        private long games;
+
+        /**
+         * The number of moves of all games.
+         */
+        private long moves;
+
+        /**
+         * The number of games indexed by the size, the opening player and
+         * the stored result.
+         */
+        private final long[][][] results = new long[SIZES][2][RESULTS];
+
+        /**
+         * The number of games by their length in buckets.
+         */
+        private final long[] lengths = new long[BUCKETS];
+
+        /**
+         * The number of push-outs by their move number in buckets.
+         */
+        private final long[] pushOuts = new long[BUCKETS];
+
+        /**
+         * The number of games with a push-out.
+         */
+        private long pushOutGames;
+
+        /**
+         * The sum of the move numbers of the first push-out of every game
+         * with a push-out.
+         */
+        private long firstPushOuts;
+
+        /**
+         * The number of games by the code of their first move, indexed by
+         * the size and the opening player. The arrays are created for the
+         * first game of their size and opening player.
+         */
+        private final long[][][] firstMoves = new long[SIZES][2][];
+
+        /**
+         * The boards in the start position, indexed by the size and the
+         * opening player. They are created for the first game of their
+         * size and opening player.
+         */
+        private final SearchBoard[][] boards = new SearchBoard[SIZES][2];
+
+        /**
+         * The direct buffer into which the chunks are read or {@code null}
+         * before the first chunk.
+         */
+        private ByteBuffer buffer;
+
+        /**
+         * Read a chunk of whole records into the buffer and count its games.
+         * The buffer grows if the chunk does not fit.
+         *
+         * @param channel The channel of the file.
+         * @param offset The position of the chunk in the file.
+         * @param length The length of the chunk.
+         * @throws IOException If the chunk cannot be read.
+         * @throws IllegalArgumentException If a record is not valid.
+         */
+        private void add(FileChannel channel, long offset, int length)
+                throws IOException {
+            if (buffer == null || buffer.capacity() < length) {
+                buffer = ByteBuffer.allocateDirect(
+                        Math.max(BUFFER_SIZE, length));
+            }
+            buffer.clear().limit(length);
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Truncated chunk at " + offset
+                            + "!");
+                }
+            }
+            buffer.flip();
+            add(buffer);
+        }
+
+        /**
+         * Count the games of a chunk of whole records.
+         *
+         * @param chunk The chunk.
+         * @throws IllegalArgumentException If a record is not valid.
+         */
+        private void add(ByteBuffer chunk) {
+            int position = 0;
+
+            while (position < chunk.limit()) {
+                int size = chunk.get(position) & 0xFF;
+                int opener = chunk.get(position + 1) & 0xFF;
+                int result = chunk.get(position + 4) & 0xFF;
+                int moveCount = chunk.getInt(position + 5);
+                int width = RecordFormat.getMoveWidth(size);
+
+                if (opener >= 2 || result >= RESULTS) {
+                    throw new IllegalArgumentException("Invalid record at "
+                            + position + " of a chunk!");
+                }
+                position += RecordFormat.HEADER_SIZE;
+                games++;
+                moves += moveCount;
+                results[size][opener][result]++;
+                lengths[Math.min(moveCount / BUCKET_SIZE, BUCKETS - 1)]++;
+
+                if (moveCount > 0) {
+                    if (firstMoves[size][opener] == null) {
+                        firstMoves[size][opener] = new long[1 << 8 * width];
+                    }
+                    firstMoves[size][opener][getCode(chunk, position,
+                            width)]++;
+                    replay(chunk, position, size, opener, moveCount, width);
+                }
+                position += moveCount * width;
+            }
+        }
+
+        /**
+         * Replay the moves of a game to count its push-outs. The moves are
+         * undone afterwards.
+         *
+         * @param chunk The chunk of the game.
+         * @param position The position of the first move in the chunk.
+         * @param size The size of the board.
+         * @param opener The opening player.
+         * @param moveCount The number of moves.
+         * @param width The width of a move.
+         * @throws IllegalArgumentException If a move is not possible.
+         */
+        private void replay(ByteBuffer chunk, int position, int size,
+                            int opener, int moveCount, int width) {
+            SearchBoard board = getBoard(size, opener);
+            int made = 0;
+            int firstPushOut = 0;
+
+            try {
+                for (; made < moveCount; made++) {
+                    int move = RecordFormat.decode(board, getCode(chunk,
+                            position + made * width, width));
+
+                    if (PackedMove.isPushOut(move)) {
+                        pushOuts[Math.min(made / BUCKET_SIZE,
+                                BUCKETS - 1)]++;
+
+                        if (firstPushOut == 0) {
+                            firstPushOut = made + 1;
+                        }
+                    }
+                    board.makeMove(move);
+                }
+            } finally {
+                for (; made > 0; made--) {
+                    board.unmakeMove();
+                }
+            }
+
+            if (firstPushOut > 0) {
+                pushOutGames++;
+                firstPushOuts += firstPushOut;
+            }
+        }
+
+        /**
+         * Get the board in the start position of a size and opening player.
+         *
+         * @param size The size of the board.
+         * @param opener The opening player.
+         * @return The board.
+         */
+        private SearchBoard getBoard(int size, int opener) {
+            if (boards[size][opener] == null) {
+                boards[size][opener] = createBoard(size, opener);
+            }
+            return boards[size][opener];
+        }
+
+        /**
+         * Add the statistics of another thread.
+         *
+         * @param other The statistics of the other thread.
+         */
+        private void merge(Statistics other) {
+            games += other.games;
+            moves += other.moves;
+            pushOutGames += other.pushOutGames;
+            firstPushOuts += other.firstPushOuts;
+
+            for (int i = 0; i < BUCKETS; i++) {
+                lengths[i] += other.lengths[i];
+                pushOuts[i] += other.pushOuts[i];
+            }
+
+            for (int size = 0; size < SIZES; size++) {
+                for (int opener = 0; opener < 2; opener++) {
+                    for (int result = 0; result < RESULTS; result++) {
+                        results[size][opener][result]
+                                += other.results[size][opener][result];
+                    }
+                    long[] counts = other.firstMoves[size][opener];
+
+                    if (counts != null) {
+                        if (firstMoves[size][opener] == null) {
+                            firstMoves[size][opener]
+                                    = new long[counts.length];
+                        }
+
+                        for (int code = 0; code < counts.length; code++) {
+                            firstMoves[size][opener][code] += counts[code];
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Print the statistics.
+         *
+         * @param topMoves The number of most frequent first moves which are
+         *                 printed.
+         */
+        private void print(int topMoves) {
+            System.out.println(String.format(Locale.ROOT,
+                    "games %d, moves %d, average %.1f moves", games, moves,
+                    games == 0 ? 0.0 : (double) moves / games));
+
+            for (int size = 0; size < SIZES; size++) {
+                for (int opener = 0; opener < 2; opener++) {
+                    printResults(size, opener);
+                }
+            }
+            System.out.println("game lengths:");
+            printDistribution(lengths, games);
+            long total = 0;
+
+            for (long count : pushOuts) {
+                total += count;
+            }
+            System.out.println(String.format(Locale.ROOT,
+                    "push-outs %d, %.2f per game, games with a push-out %d "
+                            + "(%.1f%%), first push-out at move %.1f", total,
+                    games == 0 ? 0.0 : (double) total / games, pushOutGames,
+                    percent(pushOutGames, games), pushOutGames == 0 ? 0.0
+                            : (double) firstPushOuts / pushOutGames));
+            System.out.println("push-outs by move:");
+            printDistribution(pushOuts, total);
+
+            for (int size = 0; size < SIZES; size++) {
+                for (int opener = 0; opener < 2; opener++) {
+                    printFirstMoves(size, opener, topMoves);
+                }
+            }
+        }
+
+        /**
+         * Print the wins of the games of a size and opening player.
+         *
+         * @param size The size of the board.
+         * @param opener The opening player.
+         */
+        private void printResults(int size, int opener) {
+            long[] counts = results[size][opener];
+            long count = 0;
+
+            for (long result : counts) {
+                count += result;
+            }
+
+            if (count > 0) {
+                Player player = Player.values()[opener];
+                long openerWins = counts[RecordFormat.toResult(player)];
+                long otherWins = counts[RecordFormat.toResult(
+                        player.other())];
+                long unfinished = counts[RecordFormat.NO_WINNER];
+                System.out.println(String.format(Locale.ROOT,
+                        "size %d, %s opens: games %d, opener wins %d "
+                                + "(%.1f%%), other wins %d (%.1f%%), "
+                                + "unfinished %d (%.1f%%)", size,
+                        player.name().toLowerCase(), count, openerWins,
+                        percent(openerWins, count), otherWins,
+                        percent(otherWins, count), unfinished,
+                        percent(unfinished, count)));
+            }
+        }
+
+        /**
+         * Print the buckets of a distribution which are not empty.
+         *
+         * @param buckets The counts of the buckets.
+         * @param total The sum of the counts.
+         */
+        private void printDistribution(long[] buckets, long total) {
+            for (int i = 0; i < BUCKETS; i++) {
+                if (buckets[i] > 0) {
+                    String range = i == BUCKETS - 1 ? i * BUCKET_SIZE + "+"
+                            : (i * BUCKET_SIZE + 1) + "-"
+                                    + (i + 1) * BUCKET_SIZE;
+                    System.out.println(String.format(Locale.ROOT,
+                            "  %s: %d (%.1f%%)", range, buckets[i],
+                            percent(buckets[i], total)));
+                }
+            }
+        }
+
+        /**
+         * Print the most frequent first moves of a size and opening player.
+         *
+         * @param size The size of the board.
+         * @param opener The opening player.
+         * @param topMoves The number of moves which are printed.
+         */
+        private void printFirstMoves(int size, int opener, int topMoves) {
+            long[] counts = firstMoves[size][opener];
+
+            if (counts == null || topMoves == 0) {
+                return;
+            }
+            long count = 0;
+
+            for (long moveCount : counts) {
+                count += moveCount;
+            }
+            System.out.println(String.format(Locale.ROOT,
+                    "first moves of size %d, %s opens:", size,
+                    Player.values()[opener].name().toLowerCase()));
+            long[] printed = counts.clone();
+            SearchBoard board = createBoard(size, opener);
+
+            for (int i = 0; i < topMoves; i++) {
+                int best = 0;
+
+                for (int code = 1; code < printed.length; code++) {
+                    if (printed[code] > printed[best]) {
+                        best = code;
+                    }
+                }
+
+                if (printed[best] == 0) {
+                    break;
+                }
+                Move move = Topology.get(size).toMove(
+                        RecordFormat.decode(board, best));
+                System.out.println(String.format(Locale.ROOT,
+                        "  %s: %d (%.1f%%)", move, printed[best],
+                        percent(printed[best], count)));
+                printed[best] = 0;
+            }
+        }
+
+        /**
+         * Create a board in the start position.
+         *
+         * @param size The size of the board.
+         * @param opener The opening player.
+         * @return The board.
+         */
+        private static SearchBoard createBoard(int size, int opener) {
+            return (SearchBoard) RecordFormat.REPLAY_TYPE.create(size,
+                    Player.values()[opener], 1);
+        }
+
+        /**
+         * Get the code of a move.
+         *
+         * @param chunk The chunk of the move.
+         * @param position The position of the move in the chunk.
+         * @param width The width of the move.
+         * @return The code.
+         */
+        private static int getCode(ByteBuffer chunk, int position,
+                                   int width) {
+            return width == 1 ? chunk.get(position) & 0xFF
+                    : chunk.getShort(position) & 0xFFFF;
+        }
+    }
+}
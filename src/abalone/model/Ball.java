@@ -1,7 +1,5 @@
 package abalone.model;
 
-import java.util.Arrays;
-
 /**
  * A ball with a color, an owner and two coordinates.
  */
@@ -88,9 +86,10 @@ public class Ball implements Cloneable {
      */
     public int distToEdge(int size) {
         int diag2 = row - diag + size / 2;
-        int[] dists = {row, diag, diag2, size - row - 1, size - diag - 1,
-                size - diag2 - 1};
-        return Arrays.stream(dists).min().getAsInt();
+        int lowDist = Math.min(Math.min(row, diag), diag2);
+        int highDist = Math.min(Math.min(size - row - 1, size - diag - 1),
+                size - diag2 - 1);
+        return Math.min(lowDist, highDist);
     }
 
     /**
@@ -0,0 +1,959 @@
+package abalone.model;
+
+import java.util.Arrays;
+
+/**
+ * Abalone (lite) game which stores its balls in bitboards.
+ *
+ * The rules and the machine's scoring are the same as in {@link AbaloneBoard},
+ * so both boards make the same moves. Each player owns one bit set over the
+ * cells of the {@link Topology} of the board size, stored in an array of
+ * {@code long} words. Lines are walked with the neighbour table of the
+ * topology, while the ball counts and the distance sums of the score are kept
+ * up to date by every move.
+ */
+public class BitBoard extends SearchBoard implements Board, Cloneable {
+    /**
+     * The number of directions a ball can be moved to.
+     */
+    private static final int DIRECTIONS = PackedMove.DIRECTIONS;
+
+    /**
+     * The players indexed by their ordinal. Unlike {@link Player#values()}
+     * it does not create a new array whenever a move gets undone.
+     */
+    private static final Player[] PLAYERS = Player.values();
+
+    /**
+     * The cell layout of the board size which is shared by all boards of
+     * this size.
+     */
+    private final Topology topology;
+
+    /**
+     * The occupied cells of each player indexed by the ordinal of the player.
+     */
+    private long[][] bits;
+
+    /**
+     * The number of balls of each player indexed by the ordinal of the player.
+     */
+    private int[] ballCounts;
+
+    /**
+     * The cells of the machine balls in the order the machine tries its moves.
+     * It is the order of the ball list of {@link AbaloneBoard}, so both boards
+     * break ties between equally scored moves the same way.
+     */
+    private int[] machineBalls;
+
+    /**
+     * Number of balls each player has at the beginning of a match.
+     */
+    private final int startBalls;
+
+    /**
+     * The player who has opened the game.
+     */
+    private final Player openingPlayer;
+
+    /**
+     * The player who is allowed to make the next move.
+     */
+    private Player nextPlayer;
+
+    /**
+     * The depth of the tree the machine uses for the game tree.
+     */
+    private int difficultyLevel;
+
+    /**
+     * The Zobrist key of the balls on the board.
+     */
+    private long hash;
+
+    /**
+     * The sum of the distances of the balls of each player to the edge
+     * indexed by the ordinal of the player.
+     */
+    private int[] distanceSums;
+
+    /**
+     * The runs of balls of the same owner through each cell which are used
+     * to generate the moves of the search or {@code null} until the moves of
+     * the board are generated for the first time.
+     */
+    private LineRuns runs;
+
+    /**
+     * The changed cells of the moves which can be undone, see
+     * {@link #shiftLine(int, int)}, with the ordinal of the next player before
+     * the move in the highest bits.
+     */
+    private long[] undoStack = new long[0];
+
+    /**
+     * The number of moves which can be undone.
+     */
+    private int undoSize;
+
+    /**
+     * Creates a new abalone board with the default size of 9, a difficulty
+     * level of 2 and the human starts the game.
+     */
+    public BitBoard() {
+        this(9, Player.HUMAN, 2);
+    }
+
+    /**
+     * Creates a new abalone board with the given size.
+     *
+     * @param size The size of the board must not be smaller than 7 and odd.
+     * @param openingPlayer The player who makes the first move.
+     * @param difficultyLevel The difficulty level the machine uses.
+     * @throws IllegalArgumentException If the size is smaller than 7 or even or
+     *                                  if the given level is smaller than 1.
+     */
+    public BitBoard(int size, Player openingPlayer, int difficultyLevel) {
+        if (size < MIN_SIZE) {
+            throw new IllegalArgumentException("The smallest size for the board"
+                    + " is 7. Given size: " + size);
+        } else if (size % 2 == 0) {
+            throw new IllegalArgumentException("Only odd board sizes are "
+                    + "allowed. Given size: " + size);
+        } else {
+            this.openingPlayer = openingPlayer;
+            nextPlayer = openingPlayer;
+
+            setLevel(difficultyLevel);
+
+            topology = Topology.get(size);
+            initializeBoard();
+            startBalls = machineBalls.length;
+        }
+    }
+
+    /**
+     * Initialize the bits with the starting balls. The balls of the human
+     * player are at the bottom.
+     */
+    private void initializeBoard() {
+        int size = getSize();
+        int[] balls = new int[topology.getCells()];
+        int machineCount = 0;
+        bits = new long[2][(topology.getCells() + 63) >>> 6];
+        ballCounts = new int[2];
+        distanceSums = new int[2];
+
+        for (int row = 0; row < size; row++) {
+            for (int diag = topology.getFirstDiag(row);
+                 diag <= topology.getLastDiag(row); diag++) {
+                int cell = topology.getCell(row, diag);
+
+                if (row <= 1 || row == 2 && diag >= 2
+                        && diag <= size / 2) {
+                    placeBall(cell, Player.HUMAN.ordinal());
+                    ballCounts[Player.HUMAN.ordinal()]++;
+                } else if (row >= size - 2 || row == size - 3
+                        && diag <= size - 3 && diag >= size / 2) {
+                    placeBall(cell, Player.MACHINE.ordinal());
+                    ballCounts[Player.MACHINE.ordinal()]++;
+                    balls[machineCount++] = cell;
+                }
+            }
+        }
+
+        // Machine balls need to be reversed to have the same order as the
+        // ball list of the object board.
+        machineBalls = new int[machineCount];
+
+        for (int i = 0; i < machineCount; i++) {
+            machineBalls[i] = balls[machineCount - 1 - i];
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Player getOpeningPlayer() {
+        return openingPlayer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Color getHumanColor() {
+        return getOpeningPlayer() == Player.HUMAN ? Color.BLACK : Color.WHITE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Player getNextPlayer() {
+        if (isGameOver()) {
+            throw new IllegalStateException("Game is already over!");
+        } else {
+            return nextPlayer;
+        }
+    }
+
+    /**
+     * Sets the next player to the player who has not made the last move if
+     * possible.
+     */
+    private void setNextPlayer() {
+        if (hasPossibleMove(nextPlayer.other())) {
+            nextPlayer = nextPlayer.other();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Topology getTopology() {
+        return topology;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Board move(int rowFrom, int diagFrom, int rowTo, int diagTo) {
+        if (isGameOver()) {
+            throw new IllegalStateException("The game is already over!");
+        } else if (nextPlayer != Player.HUMAN) {
+            throw new IllegalStateException("It is the machines turn!");
+        } else if (!isValidPosition(rowFrom, diagFrom)) {
+            throw new IllegalArgumentException("Invalid position!");
+        } else if (!isValidTarget(rowTo, diagTo)) {
+            throw new IllegalArgumentException("Invalid target coordinates!");
+        } else {
+            int cell = topology.getCell(rowFrom, diagFrom);
+            int dir = Topology.getDirection(rowTo - rowFrom,
+                    diagTo - diagFrom);
+
+            if (dir >= 0 && isSet(bits[Player.HUMAN.ordinal()], cell)
+                    && getMove(Player.HUMAN, cell, dir) != PackedMove.NONE) {
+                return executeMove(cell, dir);
+            } else {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Board machineMove() {
+        return machineMove((CancellationToken) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Board machineMove(CancellationToken token) {
+        if (isGameOver()) {
+            throw new IllegalStateException("Game is already over!");
+        } else if (nextPlayer != Player.MACHINE) {
+            throw new IllegalStateException("It is the human's turn!");
+        } else {
+            MachineMoveEvent event = new MachineMoveEvent();
+            event.begin();
+            int move = getBookMove();
+            BitBoard board;
+
+            if (move != PackedMove.NONE) {
+                board = executeMove(move);
+                board.statistics = SearchStatistics.BOOK_MOVE;
+            } else {
+                Search search = createSearch(difficultyLevel,
+                        SearchMode.ALPHA_BETA);
+
+                // The search moves the balls of a copy back and forth.
+                move = search.findBestMove(clone(), token);
+                board = executeMove(move);
+                board.statistics = search.getStatistics();
+            }
+            commitMachineMove(event, difficultyLevel, 0, token, move, board);
+            return board;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Board machineMove(long timeLimit) {
+        return machineMove(timeLimit, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Board machineMove(long timeLimit, CancellationToken token) {
+        if (timeLimit < 1) {
+            throw new IllegalArgumentException("Time limit must be bigger than "
+                    + "0!");
+        } else if (isGameOver()) {
+            throw new IllegalStateException("Game is already over!");
+        } else if (nextPlayer != Player.MACHINE) {
+            throw new IllegalStateException("It is the human's turn!");
+        } else {
+            MachineMoveEvent event = new MachineMoveEvent();
+            event.begin();
+            int move = getBookMove();
+            BitBoard board;
+
+            if (move != PackedMove.NONE) {
+                board = executeMove(move);
+                board.statistics = SearchStatistics.BOOK_MOVE;
+            } else {
+                Search search = createSearch(Search.MAX_DEPTH,
+                        SearchMode.ALPHA_BETA);
+
+                // The search moves the balls of a copy back and forth.
+                move = search.findBestMove(clone(), timeLimit, token);
+                board = executeMove(move);
+                board.statistics = search.getStatistics();
+            }
+            commitMachineMove(event, difficultyLevel, timeLimit, token, move,
+                    board);
+            return board;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    BitBoard executeMove(int move) {
+        return executeMove(PackedMove.getSlot(move),
+                PackedMove.getDirection(move));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    double getScore(int height) {
+        return getSize() * getDifferenceScore() + getPositionScore()
+                + getWinnerScore(height);
+    }
+
+    /**
+     * Get the score of the abalone board based on the moves a player needs
+     * to win the game.
+     *
+     * @param height The number of moves for anyone to archive a win.
+     * @return The score.
+     */
+    private double getWinnerScore(int height) {
+        double score = 0;
+
+        if (isGameOver()) {
+            if (getWinner() == Player.HUMAN) {
+                score = -1.5 * 5_000_000 / height;
+            } else {
+                score = 5_000_000.0 / height;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Get the score of the abalone board based on the difference of the number
+     * of balls each player has.
+     *
+     * @return The score.
+     */
+    private double getDifferenceScore() {
+        return ballCounts[Player.MACHINE.ordinal()]
+                - 1.5 * ballCounts[Player.HUMAN.ordinal()];
+    }
+
+    /**
+     * Get the score of the abalone board based on the position of each ball.
+     * The distance sums are kept up to date by every move.
+     *
+     * @return The score.
+     */
+    private double getPositionScore() {
+        return distanceSums[Player.MACHINE.ordinal()] - 1.5
+                * distanceSums[Player.HUMAN.ordinal()];
+    }
+
+    /**
+     * Get the move of the ball of the given player in the given cell into the
+     * given direction if it is possible. There must be more own balls than
+     * enemy balls in the moved line and only one or no color change is
+     * allowed. The slot of a packed move is the cell of the ball.
+     *
+     * @param player The owner of the ball in the cell.
+     * @param cell The cell of the ball.
+     * @param dir The direction of the move.
+     * @return The packed move or {@link PackedMove#NONE} if the move is not
+     *         possible.
+     */
+    private int getMove(Player player, int cell, int dir) {
+        long[] own = bits[player.ordinal()];
+        long[] other = bits[player.other().ordinal()];
+        int[] neighbours = topology.getNeighbours();
+        int ownCount = 1;
+        int otherCount = 0;
+        int next = neighbours[cell * DIRECTIONS + dir];
+
+        // Count the own balls in front of the moved ball.
+        while (next >= 0 && isSet(own, next)) {
+            ownCount++;
+            next = neighbours[next * DIRECTIONS + dir];
+        }
+
+        // Count the enemy balls which follow.
+        while (next >= 0 && isSet(other, next)) {
+            otherCount++;
+            next = neighbours[next * DIRECTIONS + dir];
+        }
+
+        // An own ball behind the enemy balls would be a second color change.
+        if (ownCount > otherCount && (next < 0 || !isSet(own, next))) {
+            return PackedMove.pack(cell, dir, otherCount > 0 && next < 0);
+        } else {
+            return PackedMove.NONE;
+        }
+    }
+
+    /**
+     * Checks if the given player has at least one possible move.
+     *
+     * @param player The player.
+     * @return {@code true} iff the player can make a move.
+     */
+    private boolean hasPossibleMove(Player player) {
+        long[] own = bits[player.ordinal()];
+
+        for (int word = 0; word < own.length; word++) {
+            long balls = own[word];
+
+            while (balls != 0) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(balls);
+                balls &= balls - 1;
+
+                for (int dir = 0; dir < DIRECTIONS; dir++) {
+                    if (getMove(player, cell, dir) != PackedMove.NONE) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    int getPossibleMoves(Player player, int[] moves) {
+        int count = 0;
+        ensureRuns();
+
+        if (player == Player.MACHINE && undoSize == 0) {
+            // The ball order is only up to date if no move has been made.
+            for (int cell : machineBalls) {
+                count = addPossibleMoves(moves, count, cell);
+            }
+        } else {
+            long[] own = bits[player.ordinal()];
+
+            for (int word = 0; word < own.length; word++) {
+                long balls = own[word];
+
+                while (balls != 0) {
+                    int cell = (word << 6) + Long.numberOfTrailingZeros(balls);
+                    balls &= balls - 1;
+                    count = addPossibleMoves(moves, count, cell);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    int getPackedMove(int cell, int dir) {
+        if (!isSet(bits[nextPlayer.ordinal()], cell)) {
+            return PackedMove.NONE;
+        }
+
+        // A single move is checked faster by walking its line than by
+        // building and updating the runs.
+        return getMove(nextPlayer, cell, dir);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    int getCell(Player player, int index) {
+        long[] own = bits[player.ordinal()];
+        int remaining = index;
+
+        for (int word = 0; word < own.length; word++) {
+            int count = Long.bitCount(own[word]);
+
+            if (remaining < count) {
+                long balls = own[word];
+
+                for (; remaining > 0; remaining--) {
+                    balls &= balls - 1;
+                }
+                return (word << 6) + Long.numberOfTrailingZeros(balls);
+            }
+            remaining -= count;
+        }
+        return Topology.OFF_BOARD;
+    }
+
+    /**
+     * Build the runs of the board if its moves have not been generated yet.
+     */
+    private void ensureRuns() {
+        if (runs == null) {
+            runs = new LineRuns(topology);
+
+            for (int cell = 0; cell < topology.getCells(); cell++) {
+                for (int owner = 0; owner < 2; owner++) {
+                    if (isSet(bits[owner], cell)) {
+                        runs.setOwner(cell, owner);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the cells of the balls of the given player in ascending order.
+     *
+     * @param player The player.
+     * @return The cells of the balls.
+     */
+    private int[] getCells(Player player) {
+        long[] own = bits[player.ordinal()];
+        int[] cells = new int[ballCounts[player.ordinal()]];
+        int count = 0;
+
+        for (int word = 0; word < own.length; word++) {
+            long balls = own[word];
+
+            while (balls != 0) {
+                cells[count++]
+                        = (word << 6) + Long.numberOfTrailingZeros(balls);
+                balls &= balls - 1;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Add the possible moves of a ball to the given array.
+     *
+     * @param moves The array of packed moves.
+     * @param count The number of moves in the array.
+     * @param cell The cell of the ball.
+     * @return The new number of moves in the array.
+     */
+    private int addPossibleMoves(int[] moves, int count, int cell) {
+        for (int dir = 0; dir < DIRECTIONS; dir++) {
+            int move = runs.getMove(cell, dir);
+
+            if (move != PackedMove.NONE) {
+                moves[count++] = move;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void makeMove(int move) {
+        if (undoSize == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, 2 * undoSize + 8);
+        }
+        undoStack[undoSize++] = shiftLine(PackedMove.getSlot(move),
+                PackedMove.getDirection(move))
+                | (long) nextPlayer.ordinal() << 61;
+        setNextPlayer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void unmakeMove() {
+        long undo = undoStack[--undoSize];
+        nextPlayer = PLAYERS[(int) (undo >>> 61)];
+        unshiftLine(undo & ~(1L << 61));
+    }
+
+    /**
+     * Moves the line of balls starting at the given cell one slot into the
+     * given direction without checking if the move is valid. The next player
+     * is not changed.
+     *
+     * <p>
+     * The line consists of a run of own balls and an optional run of enemy
+     * balls. Only the first cell, the cell behind the own run and the cell
+     * behind the enemy run change.
+     *
+     * @param cell The cell of the moved ball.
+     * @param dir The direction of the move.
+     * @return The information needed by {@link #unshiftLine(long)}.
+     */
+    private long shiftLine(int cell, int dir) {
+        int[] neighbours = topology.getNeighbours();
+        int owner = isSet(bits[Player.HUMAN.ordinal()], cell)
+                ? Player.HUMAN.ordinal() : Player.MACHINE.ordinal();
+        long[] own = bits[owner];
+        long[] other = bits[1 - owner];
+        int head = neighbours[cell * DIRECTIONS + dir];
+
+        while (head >= 0 && isSet(own, head)) {
+            head = neighbours[head * DIRECTIONS + dir];
+        }
+        boolean pushes = head >= 0 && isSet(other, head);
+        int tail = head;
+
+        while (tail >= 0 && isSet(other, tail)) {
+            tail = neighbours[tail * DIRECTIONS + dir];
+        }
+        removeBall(cell, owner);
+
+        if (head < 0) {
+            // The last own ball got pushed out.
+            ballCounts[owner]--;
+        } else {
+            if (pushes) {
+                removeBall(head, 1 - owner);
+
+                if (tail < 0) {
+                    // The last enemy ball got pushed out.
+                    ballCounts[1 - owner]--;
+                } else {
+                    placeBall(tail, 1 - owner);
+                }
+            }
+            placeBall(head, owner);
+        }
+        return encodeUndo(cell, head, pushes ? tail : head, owner);
+    }
+
+    /**
+     * Undo a move made by {@link #shiftLine(int, int)}. The next player must
+     * be restored by the caller.
+     *
+     * @param undo The information returned by the move.
+     */
+    private void unshiftLine(long undo) {
+        int cell = (int) (undo & 0xFFFFF);
+        int head = (int) ((undo >>> 20) & 0xFFFFF) - 1;
+        int tail = (int) ((undo >>> 40) & 0xFFFFF) - 1;
+        int owner = (int) (undo >>> 60);
+        placeBall(cell, owner);
+
+        if (head < 0) {
+            ballCounts[owner]++;
+        } else {
+            removeBall(head, owner);
+
+            if (tail != head) {
+                placeBall(head, 1 - owner);
+
+                if (tail < 0) {
+                    ballCounts[1 - owner]++;
+                } else {
+                    removeBall(tail, 1 - owner);
+                }
+            }
+        }
+    }
+
+    /**
+     * Put a ball into an empty cell and update the hash, the distance sum and
+     * the runs.
+     *
+     * @param cell The cell of the ball.
+     * @param owner The ordinal of the owner of the ball.
+     */
+    private void placeBall(int cell, int owner) {
+        set(bits[owner], cell);
+        hash ^= topology.getKeys()[cell * 2 + owner];
+        distanceSums[owner] += topology.getDistances()[cell];
+
+        if (runs != null) {
+            runs.setOwner(cell, owner);
+        }
+    }
+
+    /**
+     * Remove a ball from its cell and update the hash, the distance sum and
+     * the runs.
+     *
+     * @param cell The cell of the ball.
+     * @param owner The ordinal of the owner of the ball.
+     */
+    private void removeBall(int cell, int owner) {
+        clear(bits[owner], cell);
+        hash ^= topology.getKeys()[cell * 2 + owner];
+        distanceSums[owner] -= topology.getDistances()[cell];
+
+        if (runs != null) {
+            runs.clear(cell);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    long getHash() {
+        return nextPlayer == Player.HUMAN ? hash ^ Zobrist.HUMAN_TO_MOVE : hash;
+    }
+
+    /**
+     * Pack the cells which changed during a move into a long.
+     *
+     * @param cell The cell of the moved ball.
+     * @param head The cell behind the own balls or -1 if off the board.
+     * @param tail The cell behind the enemy balls or -1 if off the board. It
+     *             equals the head if no enemy ball was pushed.
+     * @param owner The ordinal of the player who made the move.
+     * @return The packed cells.
+     */
+    private static long encodeUndo(int cell, int head, int tail, int owner) {
+        return cell | (long) (head + 1) << 20 | (long) (tail + 1) << 40
+                | (long) owner << 60;
+    }
+
+    /**
+     * Executes a move on a clone of the board without checking if the move is
+     * valid.
+     *
+     * @param cell The cell of the moved ball.
+     * @param dir The direction of the move.
+     * @return A clone of the current board with the executed move.
+     */
+    private BitBoard executeMove(int cell, int dir) {
+        BitBoard clone = clone();
+        clone.machineBalls = moveBalls(clone.machineBalls, cell, dir);
+        clone.shiftLine(cell, dir);
+        clone.setNextPlayer();
+        return clone;
+    }
+
+    /**
+     * Get the cells of the given balls after the line starting at the given
+     * cell has been moved one slot into the given direction. Balls which get
+     * pushed out are removed.
+     *
+     * @param balls The cells of the balls.
+     * @param cell The cell of the moved ball.
+     * @param dir The direction of the move.
+     * @return The new cells of the balls in the same order.
+     */
+    private int[] moveBalls(int[] balls, int cell, int dir) {
+        int[] moved = new int[balls.length];
+        int length = 0;
+
+        for (int ball : balls) {
+            int target = ball;
+
+            for (int c = cell; c >= 0 && isOccupied(c);
+                 c = topology.getNeighbours()[c * DIRECTIONS + dir]) {
+                if (c == ball) {
+                    target = topology.getNeighbours()[c * DIRECTIONS + dir];
+                    break;
+                }
+            }
+
+            if (target >= 0) {
+                moved[length++] = target;
+            }
+        }
+        return Arrays.copyOf(moved, length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLevel(int level) {
+        if (level < 1) {
+            throw new IllegalArgumentException("Level must bigger than 0!");
+        } else {
+            difficultyLevel = level;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isGameOver() {
+        return startBalls - ballCounts[Player.HUMAN.ordinal()] >= ELIM
+                || startBalls - ballCounts[Player.MACHINE.ordinal()] >= ELIM;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Player getWinner() {
+        if (!isGameOver()) {
+            throw new IllegalStateException("Game is not over yet!");
+        } else {
+            if (ballCounts[Player.HUMAN.ordinal()]
+                    < ballCounts[Player.MACHINE.ordinal()]) {
+                return Player.MACHINE;
+            } else {
+                return Player.HUMAN;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfBalls(Color color) {
+        if (color == getHumanColor()) {
+            return ballCounts[Player.HUMAN.ordinal()];
+        } else if (color == getHumanColor().other()) {
+            return ballCounts[Player.MACHINE.ordinal()];
+        } else {
+            throw new IllegalArgumentException("Color NONE has no balls!");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Color getSlot(int row, int diag) {
+        if (!isValidPosition(row, diag)) {
+            throw new IllegalArgumentException("Invalid coordinates!");
+        } else {
+            int cell = topology.getCell(row, diag);
+
+            if (isSet(bits[Player.HUMAN.ordinal()], cell)) {
+                return getHumanColor();
+            } else if (isSet(bits[Player.MACHINE.ordinal()], cell)) {
+                return getHumanColor().other();
+            } else {
+                return Color.NONE;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSize() {
+        return topology.getSize();
+    }
+
+    /**
+     * Checks if a ball of any player is in the given cell.
+     *
+     * @param cell The cell.
+     * @return {@code true} iff the cell is occupied.
+     */
+    private boolean isOccupied(int cell) {
+        return isSet(bits[0], cell) || isSet(bits[1], cell);
+    }
+
+    /**
+     * Checks if the bit of the given cell is set.
+     *
+     * @param words The bit set.
+     * @param cell The cell.
+     * @return {@code true} iff the bit is set.
+     */
+    private static boolean isSet(long[] words, int cell) {
+        return (words[cell >>> 6] & 1L << cell) != 0;
+    }
+
+    /**
+     * Set the bit of the given cell.
+     *
+     * @param words The bit set.
+     * @param cell The cell.
+     */
+    private static void set(long[] words, int cell) {
+        words[cell >>> 6] |= 1L << cell;
+    }
+
+    /**
+     * Clear the bit of the given cell.
+     *
+     * @param words The bit set.
+     * @param cell The cell.
+     */
+    private static void clear(long[] words, int cell) {
+        words[cell >>> 6] &= ~(1L << cell);
+    }
+
+    /**
+     * Get a deep copy of the abalone board. The topology and the immutable
+     * ball order are shared.
+     *
+     * @return A deep copy of the abalone board.
+     */
+    @Override
+    public BitBoard clone() {
+        BitBoard abalone;
+
+        try {
+            abalone = (BitBoard) super.clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new AssertionError(ex);
+        }
+        abalone.bits = new long[][] {bits[0].clone(), bits[1].clone()};
+        abalone.ballCounts = ballCounts.clone();
+        abalone.distanceSums = distanceSums.clone();
+
+        // The copy builds its own runs when its moves are generated.
+        abalone.runs = null;
+
+        // The statistics belong to the move which created this board.
+        abalone.statistics = null;
+
+        // The ball order is out of date after moves made in place.
+        if (undoSize > 0) {
+            abalone.machineBalls = getCells(Player.MACHINE);
+        }
+
+        // The moves of this board cannot be undone on the copy.
+        abalone.undoStack = new long[0];
+        abalone.undoSize = 0;
+        return abalone;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    SearchBoard copy() {
+        return clone();
+    }
+}
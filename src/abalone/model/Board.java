@@ -110,6 +110,69 @@ public interface Board {
      */
     Board machineMove();
 
+    /**
+     * Executes a machine move within a time limit instead of the skill level.
+     * The machine searches deeper and deeper and plays the best move of the
+     * deepest search which it has completed in time. The search of depth 1
+     * is always completed. This method does not change the state of this
+     * instance.
+     *
+     * @param timeLimit The time limit in milliseconds, must be at least 1.
+     * @return A new board with the move executed.
+     * @throws IllegalArgumentException If the time limit is smaller than 1.
+     * @throws IllegalStateException If the game is already over, or it is not
+     *         the machine's turn.
+     */
+    Board machineMove(long timeLimit);
+
+    /**
+     * Executes a machine move which another thread can cancel. The machine
+     * searches the skill level like {@link #machineMove()} and plays the
+     * same move unless the token gets cancelled. Then the machine stops
+     * within a bounded time and plays the best move of a search of depth 1
+     * instead. This method does not change the state of this instance.
+     *
+     * @param token The token which cancels the search or {@code null}.
+     * @return A new board with the move executed.
+     * @throws IllegalStateException If the game is already over, or it is not
+     *         the machine's turn.
+     */
+    Board machineMove(CancellationToken token);
+
+    /**
+     * Executes a machine move within a time limit which another thread can
+     * cancel. The machine plays the best move of the deepest search which it
+     * has completed when the time has run out or the token gets cancelled.
+     * The search of depth 1 is always completed. This method does not change
+     * the state of this instance.
+     *
+     * @param timeLimit The time limit in milliseconds, must be at least 1.
+     * @param token The token which cancels the search or {@code null}.
+     * @return A new board with the move executed.
+     * @throws IllegalArgumentException If the time limit is smaller than 1.
+     * @throws IllegalStateException If the game is already over, or it is not
+     *         the machine's turn.
+     */
+    Board machineMove(long timeLimit, CancellationToken token);
+
+    /**
+     * Sets the opening book in which the machine looks up its move before
+     * it searches. A book of another board size is ignored. The book is kept
+     * by the following boards of the game.
+     *
+     * @param book The opening book or {@code null} to always search.
+     */
+    void setOpeningBook(OpeningBook book);
+
+    /**
+     * Gets the statistics of the machine move which created this board.
+     *
+     * @return The statistics or {@code null} if the board was not created by
+     *         a machine move or the machine built its whole game tree for
+     *         debugging.
+     */
+    SearchStatistics getStatistics();
+
     /**
      * Sets the skill level of the machine.
      *
@@ -0,0 +1,44 @@
+package abalone.model;
+
+/**
+ * The available implementations of an abalone board.
+ */
+public enum BoardType {
+    /**
+     * Board which stores its balls as objects in an array of cells.
+     */
+    ABALONE {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Board create(int size, Player openingPlayer, int level) {
+            return new AbaloneBoard(size, openingPlayer, level);
+        }
+    },
+
+    /**
+     * Board which stores its balls in bitboards.
+     */
+    BITBOARD {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Board create(int size, Player openingPlayer, int level) {
+            return new BitBoard(size, openingPlayer, level);
+        }
+    };
+
+    /**
+     * Create a new board of this type.
+     *
+     * @param size The size of the board must not be smaller than 7 and odd.
+     * @param openingPlayer The player who makes the first move.
+     * @param level The difficulty level the machine uses.
+     * @return The new board.
+     * @throws IllegalArgumentException If the size is smaller than 7 or even or
+     *                                  if the given level is smaller than 1.
+     */
+    public abstract Board create(int size, Player openingPlayer, int level);
+}
@@ -0,0 +1,42 @@
+package abalone.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The flight recorder event of a lookup of a position in the opening book.
+ */
+@Name("abalone.BookProbe")
+@Label("Book Probe")
+@Category("Abalone")
+@Description("A lookup of a position in the opening book")
+@StackTrace(false)
+final class BookProbeEvent extends Event {
+    /**
+     * The size of the board.
+     */
+    @Label("Board Size")
+    int size;
+
+    /**
+     * The hash of the position.
+     */
+    @Label("Position Hash")
+    long key;
+
+    /**
+     * If the book has a move of the position.
+     */
+    @Label("Hit")
+    boolean hit;
+
+    /**
+     * The move of the book or {@code null} if there is none.
+     */
+    @Label("Move")
+    String move;
+}
@@ -0,0 +1,32 @@
+package abalone.model;
+
+/**
+ * A flag with which another thread stops a running search of the machine.
+ * The search checks the flag together with its clock, so it stops within a
+ * few thousand positions after the token is cancelled. A search with a time
+ * limit plays the best move of the deepest search it has completed and a
+ * search of the skill level the best move of a search of depth 1.
+ */
+public final class CancellationToken {
+    /**
+     * If the token has been cancelled.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Cancel the searches which use this token. A cancelled token cannot be
+     * reset.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Get whether the token has been cancelled.
+     *
+     * @return {@code true} iff the token has been cancelled.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
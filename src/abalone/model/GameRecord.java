@@ -0,0 +1,127 @@
+package abalone.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The record of a game with its settings, its result and its moves. The
+ * moves are stored with the coordinates of the board on which the game was
+ * played and can be replayed on a new board.
+ */
+public final class GameRecord {
+    /**
+     * The size of the board.
+     */
+    private final int size;
+
+    /**
+     * The player who opened the game.
+     */
+    private final Player openingPlayer;
+
+    /**
+     * The level of the human or 0 if a person played.
+     */
+    private final int humanLevel;
+
+    /**
+     * The level of the machine.
+     */
+    private final int machineLevel;
+
+    /**
+     * The winner of the game or {@code null} if it is not over.
+     */
+    private final Player winner;
+
+    /**
+     * The moves of the game in the order they were made.
+     */
+    private final List<Move> moves;
+
+    /**
+     * Creates a new record.
+     *
+     * @param size The size of the board.
+     * @param openingPlayer The player who opened the game.
+     * @param humanLevel The level of the human or 0 if a person played.
+     * @param machineLevel The level of the machine.
+     * @param winner The winner of the game or {@code null} if it is not
+     *               over.
+     * @param moves The moves of the game in the order they were made.
+     * @throws IllegalArgumentException If a level or the size does not fit
+     *                                  into a record.
+     */
+    public GameRecord(int size, Player openingPlayer, int humanLevel,
+                      int machineLevel, Player winner, List<Move> moves) {
+        if (size < 0 || size > 255) {
+            throw new IllegalArgumentException("Invalid size: " + size);
+        } else if (humanLevel < 0 || humanLevel > 255 || machineLevel < 0
+                || machineLevel > 255) {
+            throw new IllegalArgumentException("Levels must be between 0 and "
+                    + "255!");
+        } else {
+            this.size = size;
+            this.openingPlayer = openingPlayer;
+            this.humanLevel = humanLevel;
+            this.machineLevel = machineLevel;
+            this.winner = winner;
+            this.moves = Collections.unmodifiableList(new ArrayList<>(moves));
+        }
+    }
+
+    /**
+     * Get the size of the board.
+     *
+     * @return The size.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the player who opened the game.
+     *
+     * @return The opening player.
+     */
+    public Player getOpeningPlayer() {
+        return openingPlayer;
+    }
+
+    /**
+     * Get the level of the human.
+     *
+     * @return The level or 0 if a person played.
+     */
+    public int getHumanLevel() {
+        return humanLevel;
+    }
+
+    /**
+     * Get the level of the machine.
+     *
+     * @return The level.
+     */
+    public int getMachineLevel() {
+        return machineLevel;
+    }
+
+    /**
+     * Get the winner of the game.
+     *
+     * @return The winner or {@code null} if the game is not over.
+     */
+    public Player getWinner() {
+        return winner;
+    }
+
+    /**
+     * Get the moves of the game.
+     *
+     * @return The unmodifiable list of moves in the order they were made.
+     */
+    public List<Move> getMoves() {
+        return moves;
+    }
+}
@@ -0,0 +1,294 @@
+package abalone.model;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the game records of a file in the binary format of
+ * {@link RecordFormat}. Only the header of a record is read by
+ * {@link #next()}. Its moves are decoded when they are requested and skipped
+ * otherwise.
+ */
+public final class GameRecordReader implements Closeable {
+    /**
+     * The size of the buffer in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The buffered stream of the file.
+     */
+    private final DataInputStream in;
+
+    /**
+     * The size of the board of the current record.
+     */
+    private int size;
+
+    /**
+     * The opening player of the current record.
+     */
+    private Player openingPlayer;
+
+    /**
+     * The level of the human of the current record.
+     */
+    private int humanLevel;
+
+    /**
+     * The level of the machine of the current record.
+     */
+    private int machineLevel;
+
+    /**
+     * The winner of the current record.
+     */
+    private Player winner;
+
+    /**
+     * The number of moves of the current record.
+     */
+    private int moveCount;
+
+    /**
+     * The number of bytes of the moves of the current record which are not
+     * read yet.
+     */
+    private long unreadBytes;
+
+    /**
+     * Whether a current record is read.
+     */
+    private boolean hasRecord;
+
+    /**
+     * Opens a file to read its records.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be opened or is no record file.
+     */
+    public GameRecordReader(Path file) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(file), BUFFER_SIZE));
+
+        try {
+            RecordFormat.checkHeader(in);
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Read the header of the next record. The moves of the current record
+     * are skipped if they are not read.
+     *
+     * @return {@code true} if there is a next record, {@code false} at the
+     *         end of the file.
+     * @throws IOException If the record cannot be read.
+     */
+    public boolean next() throws IOException {
+        skipBytes(unreadBytes);
+        unreadBytes = 0;
+        int first = in.read();
+
+        if (first < 0) {
+            hasRecord = false;
+            return false;
+        }
+        size = first;
+        int player = in.readUnsignedByte();
+
+        if (player >= Player.values().length) {
+            throw new IOException("Invalid opening player: " + player);
+        }
+        openingPlayer = Player.values()[player];
+        humanLevel = in.readUnsignedByte();
+        machineLevel = in.readUnsignedByte();
+
+        int result = in.readUnsignedByte();
+        moveCount = in.readInt();
+
+        if (moveCount < 0) {
+            throw new IOException("Invalid number of moves: " + moveCount);
+        }
+
+        try {
+            winner = RecordFormat.toWinner(result);
+            unreadBytes = (long) moveCount * RecordFormat.getMoveWidth(size);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+        hasRecord = true;
+        return true;
+    }
+
+    /**
+     * Get the size of the board of the current record.
+     *
+     * @return The size.
+     */
+    public int getSize() {
+        checkRecord();
+        return size;
+    }
+
+    /**
+     * Get the opening player of the current record.
+     *
+     * @return The opening player.
+     */
+    public Player getOpeningPlayer() {
+        checkRecord();
+        return openingPlayer;
+    }
+
+    /**
+     * Get the level of the human of the current record.
+     *
+     * @return The level or 0 if a person played.
+     */
+    public int getHumanLevel() {
+        checkRecord();
+        return humanLevel;
+    }
+
+    /**
+     * Get the level of the machine of the current record.
+     *
+     * @return The level.
+     */
+    public int getMachineLevel() {
+        checkRecord();
+        return machineLevel;
+    }
+
+    /**
+     * Get the winner of the current record.
+     *
+     * @return The winner or {@code null} if the game is not over.
+     */
+    public Player getWinner() {
+        checkRecord();
+        return winner;
+    }
+
+    /**
+     * Get the number of moves of the current record.
+     *
+     * @return The number of moves.
+     */
+    public int getMoveCount() {
+        checkRecord();
+        return moveCount;
+    }
+
+    /**
+     * Read the current record with its moves.
+     *
+     * @return The record.
+     * @throws IOException If the moves cannot be read or are not valid.
+     */
+    public GameRecord read() throws IOException {
+        List<Move> moves = new ArrayList<>(getMoveCount());
+        replay(moves);
+        return new GameRecord(size, openingPlayer, humanLevel, machineLevel,
+                winner, moves);
+    }
+
+    /**
+     * Replay the moves of the current record on a new board.
+     *
+     * @return The board after the last move.
+     * @throws IOException If the moves cannot be read or are not valid.
+     */
+    public Board replay() throws IOException {
+        return replay(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Replay the moves of the current record and collect them.
+     *
+     * @param moves The list for the moves or {@code null}.
+     * @return The board after the last move.
+     * @throws IOException If the moves cannot be read or are not valid.
+     */
+    private Board replay(List<Move> moves) throws IOException {
+        checkRecord();
+        int width = RecordFormat.getMoveWidth(size);
+
+        if (unreadBytes != (long) moveCount * width) {
+            throw new IllegalStateException("The moves are already read!");
+        }
+        SearchBoard board = (SearchBoard) RecordFormat.REPLAY_TYPE.create(
+                size, openingPlayer, Math.max(1, machineLevel));
+        Topology topology = Topology.get(size);
+
+        for (int i = 0; i < moveCount; i++) {
+            int code = width == 1 ? in.readUnsignedByte()
+                    : in.readUnsignedShort();
+            unreadBytes -= width;
+            int move;
+
+            try {
+                move = RecordFormat.decode(board, code);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+
+            if (moves != null) {
+                moves.add(topology.toMove(move));
+            }
+            board.makeMove(move);
+        }
+        return board;
+    }
+
+    /**
+     * Skip bytes of the file.
+     *
+     * @param count The number of bytes.
+     * @throws IOException If the bytes cannot be skipped.
+     */
+    private void skipBytes(long count) throws IOException {
+        long remaining = count;
+
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException("Truncated record!");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    /**
+     * Check that a current record is read.
+     *
+     * @throws IllegalStateException If there is no current record.
+     */
+    private void checkRecord() {
+        if (!hasRecord) {
+            throw new IllegalStateException("No current record!");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package abalone.model;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends game records to a file in the binary format of
+ * {@link RecordFormat}. The records are buffered until the writer is
+ * flushed or closed. The writer may be shared by threads.
+ */
+public final class GameRecordWriter implements Closeable {
+    /**
+     * The size of the buffer in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The buffered stream to the end of the file.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Opens a file to append records to it. A new or empty file gets the
+     * header of the format first.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be opened or is no record file.
+     */
+    public GameRecordWriter(Path file) throws IOException {
+        boolean empty = !Files.exists(file) || Files.size(file) == 0;
+
+        if (!empty) {
+            RecordFormat.checkHeader(file);
+        }
+        out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND), BUFFER_SIZE));
+
+        if (empty) {
+            out.writeInt(RecordFormat.MAGIC);
+            out.writeByte(RecordFormat.VERSION);
+        }
+    }
+
+    /**
+     * Append a record. Its moves are replayed to encode them.
+     *
+     * @param record The record.
+     * @throws IOException If the record cannot be written.
+     * @throws IllegalArgumentException If a move of the record is not
+     *                                  possible.
+     */
+    public void write(GameRecord record) throws IOException {
+        int size = record.getSize();
+        SearchBoard board = (SearchBoard) RecordFormat.REPLAY_TYPE.create(
+                size, record.getOpeningPlayer(), 1);
+        int[] moves = new int[board.getMoveCapacity()];
+        int[] codes = new int[record.getMoves().size()];
+
+        for (int i = 0; i < codes.length; i++) {
+            int move = RecordFormat.find(board, record.getMoves().get(i),
+                    moves);
+            codes[i] = RecordFormat.encode(board, move);
+            board.makeMove(move);
+        }
+        int width = RecordFormat.getMoveWidth(size);
+
+        synchronized (this) {
+            out.writeByte(size);
+            out.writeByte(record.getOpeningPlayer().ordinal());
+            out.writeByte(record.getHumanLevel());
+            out.writeByte(record.getMachineLevel());
+            out.writeByte(RecordFormat.toResult(record.getWinner()));
+            out.writeInt(codes.length);
+
+            for (int code : codes) {
+                if (width == 1) {
+                    out.writeByte(code);
+                } else {
+                    out.writeShort(code);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the buffered records to the file.
+     *
+     * @throws IOException If the records cannot be written.
+     */
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
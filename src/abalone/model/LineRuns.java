@@ -0,0 +1,227 @@
+package abalone.model;
+
+import java.util.Arrays;
+
+/**
+ * Index of the runs of balls of the same owner on a board. For every cell and
+ * direction it holds the number of balls of the owner of the cell which
+ * follow each other from the cell on and the cell behind this run. The run
+ * of the other player which follows is the run stored for that cell, so a
+ * move is checked with a few lookups instead of walking its line.
+ *
+ * <p>
+ * The board reports every cell whose owner changes, but the index is only
+ * brought up to date when a move is looked up. Most positions of a search are
+ * leaves whose moves are never generated, so their changes are undone before
+ * they reach the index. Only the runs of the same owner which lead into a
+ * changed cell are updated, so an update walks the cells behind the cell
+ * until the owner changes.
+ */
+final class LineRuns {
+    /**
+     * The owner of an empty cell.
+     */
+    private static final int EMPTY = -1;
+
+    /**
+     * The neighbour table of the topology.
+     */
+    private final int[] neighbours;
+
+    /**
+     * The ordinal of the owner of each cell or {@link #EMPTY} the runs have
+     * been computed for.
+     */
+    private final byte[] owners;
+
+    /**
+     * The ordinal of the current owner of each cell or {@link #EMPTY}.
+     */
+    private final byte[] targets;
+
+    /**
+     * The cells whose owner might have changed since the last update.
+     */
+    private final int[] pending;
+
+    /**
+     * The number of pending cells.
+     */
+    private int pendingSize;
+
+    /**
+     * If a cell is pending.
+     */
+    private final boolean[] isPending;
+
+    /**
+     * The length of the run of each cell in each direction at index
+     * {@code cell * 6 + direction}, 0 for an empty cell.
+     */
+    private final int[] lengths;
+
+    /**
+     * The cell behind the run of each cell in each direction at index
+     * {@code cell * 6 + direction} or {@link Topology#OFF_BOARD}.
+     */
+    private final int[] ends;
+
+    /**
+     * Creates the index of an empty board.
+     *
+     * @param topology The topology of the board size.
+     */
+    LineRuns(Topology topology) {
+        neighbours = topology.getNeighbours();
+        int cells = topology.getCells();
+        owners = new byte[cells];
+        targets = new byte[cells];
+        pending = new int[cells];
+        isPending = new boolean[cells];
+        lengths = new int[cells * PackedMove.DIRECTIONS];
+        ends = new int[cells * PackedMove.DIRECTIONS];
+        Arrays.fill(owners, (byte) EMPTY);
+        Arrays.fill(targets, (byte) EMPTY);
+
+        for (int cell = 0; cell < cells; cell++) {
+            for (int dir = 0; dir < PackedMove.DIRECTIONS; dir++) {
+                ends[cell * PackedMove.DIRECTIONS + dir] = cell;
+            }
+        }
+    }
+
+    /**
+     * Set the owner of a cell. The runs are updated before the next lookup.
+     *
+     * @param cell The cell.
+     * @param owner The ordinal of the new owner or -1 if the cell gets empty.
+     */
+    void setOwner(int cell, int owner) {
+        targets[cell] = (byte) owner;
+
+        if (!isPending[cell]) {
+            isPending[cell] = true;
+            pending[pendingSize++] = cell;
+        }
+    }
+
+    /**
+     * Remove the ball of a cell.
+     *
+     * @param cell The cell.
+     */
+    void clear(int cell) {
+        setOwner(cell, EMPTY);
+    }
+
+    /**
+     * Update the runs of all pending cells whose owner has changed.
+     */
+    private void updatePending() {
+        for (int i = 0; i < pendingSize; i++) {
+            int cell = pending[i];
+            int oldOwner = owners[cell];
+            int owner = targets[cell];
+            isPending[cell] = false;
+
+            if (oldOwner != owner) {
+                owners[cell] = (byte) owner;
+
+                for (int dir = 0; dir < PackedMove.DIRECTIONS; dir++) {
+                    update(cell, dir, oldOwner, owner);
+                }
+            }
+        }
+        pendingSize = 0;
+    }
+
+    /**
+     * Update the run of a changed cell in one direction and the runs of the
+     * balls behind it which lead into the cell.
+     *
+     * @param cell The changed cell.
+     * @param dir The direction of the runs.
+     * @param oldOwner The previous owner of the cell.
+     * @param owner The new owner of the cell.
+     */
+    private void update(int cell, int dir, int oldOwner, int owner) {
+        int index = cell * PackedMove.DIRECTIONS + dir;
+        int next = neighbours[index];
+        int length;
+        int end;
+
+        if (owner == EMPTY) {
+            length = 0;
+            end = cell;
+        } else if (next != Topology.OFF_BOARD && owners[next] == owner) {
+            length = lengths[next * PackedMove.DIRECTIONS + dir] + 1;
+            end = ends[next * PackedMove.DIRECTIONS + dir];
+        } else {
+            length = 1;
+            end = next;
+        }
+        lengths[index] = length;
+        ends[index] = end;
+
+        // The opposite direction lies three directions further.
+        int back = (dir + PackedMove.DIRECTIONS / 2) % PackedMove.DIRECTIONS;
+        int previous = neighbours[cell * PackedMove.DIRECTIONS + back];
+
+        if (previous == Topology.OFF_BOARD) {
+            return;
+        }
+        int previousOwner = owners[previous];
+
+        // The runs behind only change if they joined or leave the cell.
+        if (previousOwner == EMPTY
+                || previousOwner != oldOwner && previousOwner != owner) {
+            return;
+        } else if (previousOwner != owner) {
+            length = 0;
+            end = cell;
+        }
+
+        do {
+            length++;
+            lengths[previous * PackedMove.DIRECTIONS + dir] = length;
+            ends[previous * PackedMove.DIRECTIONS + dir] = end;
+            previous = neighbours[previous * PackedMove.DIRECTIONS + back];
+        } while (previous != Topology.OFF_BOARD
+                && owners[previous] == previousOwner);
+    }
+
+    /**
+     * Get the move of the ball in the given cell into the given direction if
+     * it is possible. There must be more own balls than enemy balls in the
+     * moved line and only one or no change of the owner is allowed.
+     *
+     * @param cell The cell of the moved ball.
+     * @param dir The direction of the move.
+     * @return The packed move or {@link PackedMove#NONE} if the cell is empty
+     *         or the move is not possible.
+     */
+    int getMove(int cell, int dir) {
+        if (pendingSize > 0) {
+            updatePending();
+        }
+        int index = cell * PackedMove.DIRECTIONS + dir;
+        int end = ends[index];
+
+        if (owners[cell] == EMPTY) {
+            return PackedMove.NONE;
+        } else if (end == Topology.OFF_BOARD || owners[end] == EMPTY) {
+            return PackedMove.pack(cell, dir, false);
+        }
+
+        // The run of the other player follows the own run.
+        int otherIndex = end * PackedMove.DIRECTIONS + dir;
+        int behind = ends[otherIndex];
+
+        if (lengths[index] > lengths[otherIndex]
+                && (behind == Topology.OFF_BOARD || owners[behind] == EMPTY)) {
+            return PackedMove.pack(cell, dir, behind == Topology.OFF_BOARD);
+        } else {
+            return PackedMove.NONE;
+        }
+    }
+}
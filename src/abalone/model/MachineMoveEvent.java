@@ -0,0 +1,70 @@
+package abalone.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The flight recorder event of a machine move from the opening book lookup
+ * to the new board. The duration of the event is the time of the move.
+ */
+@Name("abalone.MachineMove")
+@Label("Machine Move")
+@Category("Abalone")
+@Description("A move of the machine including the book lookup and the "
+        + "search")
+@StackTrace(false)
+final class MachineMoveEvent extends Event {
+    /**
+     * The size of the board.
+     */
+    @Label("Board Size")
+    int size;
+
+    /**
+     * The difficulty level of the machine.
+     */
+    @Label("Level")
+    int level;
+
+    /**
+     * The time limit of the move or 0 if the level is used.
+     */
+    @Label("Time Limit")
+    @Timespan(Timespan.MILLISECONDS)
+    long timeLimit;
+
+    /**
+     * The number of positions visited by the search.
+     */
+    @Label("Nodes")
+    long nodes;
+
+    /**
+     * The depth of the deepest completed search.
+     */
+    @Label("Depth")
+    int depth;
+
+    /**
+     * If the move was taken from the opening book.
+     */
+    @Label("Book Move")
+    boolean bookMove;
+
+    /**
+     * If the search was cancelled.
+     */
+    @Label("Cancelled")
+    boolean cancelled;
+
+    /**
+     * The chosen move.
+     */
+    @Label("Move")
+    String move;
+}
@@ -0,0 +1,185 @@
+package abalone.model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Orders the moves of a position for the alpha-beta search, so the moves
+ * which most likely cause a cutoff are searched first. The move of the
+ * transposition table comes first, followed by the moves which push out a
+ * ball of the other player, the killer moves of the height and all other
+ * moves ranked by their history.
+ *
+ * <p>
+ * Killer moves are the last two quiet moves which caused a cutoff at the same
+ * height. The history of a quiet move grows with the square of the remaining
+ * depth whenever it causes a cutoff. Every search thread uses its own
+ * ordering. The helpers of a Lazy SMP search start with a small random
+ * history, so they order the quiet moves differently from each other.
+ */
+final class MoveOrdering {
+    /**
+     * The rank of the move of the transposition table.
+     */
+    private static final int TABLE_MOVE = Integer.MAX_VALUE;
+
+    /**
+     * The rank of a move which pushes out a ball of the other player.
+     */
+    private static final int PUSH_OUT = 3 << 28;
+
+    /**
+     * The rank of the newer killer move. The older one is ranked one lower.
+     */
+    private static final int KILLER = 2 << 28;
+
+    /**
+     * The history which is reached before all histories are halved. It stays
+     * below the rank of the killer moves.
+     */
+    private static final int HISTORY_LIMIT = 1 << 28;
+
+    /**
+     * The bound of the random initial history of a helper. It is below the
+     * history a single cutoff at a remaining depth of two adds.
+     */
+    private static final int NOISE = 4;
+
+    /**
+     * The history of each player at the index of
+     * {@link PackedMove#getIndex(int)}.
+     */
+    private final int[][] history;
+
+    /**
+     * The two packed killer moves of each height, the newer one first.
+     */
+    private int[] killers = new int[0];
+
+    /**
+     * The ranks of the ordered moves of each height.
+     */
+    private int[][] rankBuffers = new int[0][];
+
+    /**
+     * Creates a new ordering with an empty history.
+     *
+     * @param size The size of the board.
+     */
+    MoveOrdering(int size) {
+        history = new int[Player.values().length]
+                [size * size * PackedMove.DIRECTIONS];
+    }
+
+    /**
+     * Creates a new ordering with a random initial history.
+     *
+     * @param size The size of the board.
+     * @param seed The seed of the history.
+     */
+    MoveOrdering(int size, long seed) {
+        this(size);
+        Random random = new Random(seed);
+
+        for (int[] histories : history) {
+            for (int i = 0; i < histories.length; i++) {
+                histories[i] = random.nextInt(NOISE);
+            }
+        }
+    }
+
+    /**
+     * Order the moves of a position in place.
+     *
+     * @param moves The packed possible moves of the player.
+     * @param count The number of possible moves.
+     * @param player The player to move.
+     * @param height The height of the position in the game tree.
+     * @param tableMove The packed move of the transposition table or
+     *                  {@link PackedMove#NONE}.
+     */
+    void order(int[] moves, int count, Player player, int height,
+               int tableMove) {
+        ensureHeight(height, moves.length);
+        int[] ranks = rankBuffers[height];
+        int[] playerHistory = history[player.ordinal()];
+
+        for (int k = 0; k < count; k++) {
+            int move = moves[k];
+            int rank;
+
+            if (move == tableMove) {
+                rank = TABLE_MOVE;
+            } else if (PackedMove.isPushOut(move)) {
+                rank = PUSH_OUT;
+            } else if (move == killers[2 * height]) {
+                rank = KILLER;
+            } else if (move == killers[2 * height + 1]) {
+                rank = KILLER - 1;
+            } else {
+                rank = playerHistory[PackedMove.getIndex(move)];
+            }
+
+            // Insert the move behind all moves of the same or a higher rank.
+            int i = k;
+
+            while (i > 0 && ranks[i - 1] < rank) {
+                moves[i] = moves[i - 1];
+                ranks[i] = ranks[i - 1];
+                i--;
+            }
+            moves[i] = move;
+            ranks[i] = rank;
+        }
+    }
+
+    /**
+     * Remember a move which caused a cutoff. Moves which push out a ball are
+     * ordered first anyway and are not remembered.
+     *
+     * @param move The packed move.
+     * @param player The player who made the move.
+     * @param height The height of the position in the game tree.
+     * @param remainingDepth The remaining depth below the position.
+     */
+    void addCutoff(int move, Player player, int height, int remainingDepth) {
+        if (!PackedMove.isPushOut(move)) {
+            if (killers[2 * height] != move) {
+                killers[2 * height + 1] = killers[2 * height];
+                killers[2 * height] = move;
+            }
+            int[] playerHistory = history[player.ordinal()];
+            int index = PackedMove.getIndex(move);
+            playerHistory[index] += remainingDepth * remainingDepth;
+
+            if (playerHistory[index] >= HISTORY_LIMIT) {
+                for (int[] histories : history) {
+                    for (int i = 0; i < histories.length; i++) {
+                        histories[i] /= 2;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Make sure the buffers of a height can hold the given number of moves.
+     *
+     * @param height The height.
+     * @param count The number of moves.
+     */
+    private void ensureHeight(int height, int count) {
+        if (height >= rankBuffers.length) {
+            int oldLength = rankBuffers.length;
+            rankBuffers = Arrays.copyOf(rankBuffers, height + 1);
+            killers = Arrays.copyOf(killers, 2 * (height + 1));
+            Arrays.fill(killers, 2 * oldLength, killers.length,
+                    PackedMove.NONE);
+        }
+
+        if (rankBuffers[height] == null
+                || rankBuffers[height].length < count) {
+            rankBuffers[height] = new int[count];
+        }
+    }
+}
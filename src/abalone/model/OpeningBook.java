@@ -0,0 +1,240 @@
+package abalone.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An opening book of one board size, which is built from self-play games by
+ * {@link OpeningBookBuilder}. The file is mapped into memory read-only and
+ * looked up in place, so opening a book is cheap and it can be shared by
+ * threads.
+ *
+ * <p>
+ * The file starts with a header of the magic number, the version, the board
+ * size, the number of entries and the number of moves of every game the book
+ * was built from. Every entry holds the hash of a position in which the
+ * machine moves, the weight of a move, the packed move and the number of
+ * moves which were made before the position. The entries are sorted by the
+ * hash, so the moves of a position are found by a binary search.
+ */
+public final class OpeningBook {
+    /**
+     * The magic number at the start of a book file.
+     */
+    static final int MAGIC = 0x41424f42;
+
+    /**
+     * The version of the book format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The length of the header in bytes.
+     */
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * The length of an entry in bytes.
+     */
+    static final int ENTRY_SIZE = 16;
+
+    /**
+     * The mapped file.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The board size of the book.
+     */
+    private final int size;
+
+    /**
+     * The number of entries.
+     */
+    private final int count;
+
+    /**
+     * The number of moves from the start after which the book is not used.
+     */
+    private final int depth;
+
+    /**
+     * Creates a book on a mapped file.
+     *
+     * @param buffer The mapped file.
+     * @param size The board size of the book.
+     * @param count The number of entries.
+     * @param depth The number of moves from the start after which the book
+     *              is not used.
+     */
+    private OpeningBook(ByteBuffer buffer, int size, int count, int depth) {
+        this.buffer = buffer;
+        this.size = size;
+        this.count = count;
+        this.depth = depth;
+    }
+
+    /**
+     * Open a book file with all of its moves.
+     *
+     * @param file The book file.
+     * @return The book.
+     * @throws IOException If the file cannot be read or is no book file.
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        return open(file, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Open a book file which is only used for the first moves of a game.
+     *
+     * @param file The book file.
+     * @param depth The number of moves from the start after which the book
+     *              is not used.
+     * @return The book.
+     * @throws IOException If the file cannot be read or is no book file.
+     * @throws IllegalArgumentException If the depth is negative.
+     */
+    public static OpeningBook open(Path file, int depth) throws IOException {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Book depth must not be "
+                    + "negative!");
+        }
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            long length = channel.size();
+
+            if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    length);
+
+            if (buffer.getInt(0) != MAGIC
+                    || (buffer.get(4) & 0xFF) != VERSION) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            int count = buffer.getInt(8);
+
+            if (count < 0 || (long) count * ENTRY_SIZE
+                    != length - HEADER_SIZE) {
+                throw new IOException("Truncated opening book: " + file);
+            }
+            return new OpeningBook(buffer, buffer.get(5) & 0xFF, count,
+                    depth);
+        }
+    }
+
+    /**
+     * Get the board size of the book.
+     *
+     * @return The board size.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the number of moves from the start after which the book is not
+     * used.
+     *
+     * @return The depth.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Choose a move of a position randomly by the weights of its moves.
+     *
+     * @param key The hash of the position.
+     * @return The packed move or {@link PackedMove#NONE} if the book has no
+     *         move of the position within its depth.
+     */
+    int probe(long key) {
+        int low = 0;
+        int high = count;
+
+        // Find the first entry of the position.
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (getKey(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int end = low;
+        long total = 0;
+
+        for (; end < count && getKey(end) == key; end++) {
+            if (getPly(end) < depth) {
+                total += getWeight(end);
+            }
+        }
+
+        if (total == 0) {
+            return PackedMove.NONE;
+        }
+        long choice = ThreadLocalRandom.current().nextLong(total);
+
+        for (int i = low; i < end; i++) {
+            if (getPly(i) < depth) {
+                choice -= getWeight(i);
+
+                if (choice < 0) {
+                    return getMove(i);
+                }
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    /**
+     * Get the position hash of an entry.
+     *
+     * @param index The index of the entry.
+     * @return The hash.
+     */
+    private long getKey(int index) {
+        return buffer.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+    }
+
+    /**
+     * Get the weight of the move of an entry.
+     *
+     * @param index The index of the entry.
+     * @return The weight.
+     */
+    private int getWeight(int index) {
+        return buffer.getInt(HEADER_SIZE + index * ENTRY_SIZE + 8);
+    }
+
+    /**
+     * Get the packed move of an entry.
+     *
+     * @param index The index of the entry.
+     * @return The packed move.
+     */
+    private int getMove(int index) {
+        return buffer.getShort(HEADER_SIZE + index * ENTRY_SIZE + 12)
+                & 0xFFFF;
+    }
+
+    /**
+     * Get the number of moves before the position of an entry.
+     *
+     * @param index The index of the entry.
+     * @return The number of moves.
+     */
+    private int getPly(int index) {
+        return buffer.getShort(HEADER_SIZE + index * ENTRY_SIZE + 14)
+                & 0xFFFF;
+    }
+}
@@ -0,0 +1,307 @@
+package abalone.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} of one board size from the game record files
+ * of self-play games.
+ *
+ * <p>
+ * The first moves of every game are replayed. A move of the machine is
+ * added to the book for the position before it. A move of the human is added
+ * for the same position on the board rotated by 180 degrees, on which the
+ * players are swapped, so the moves of both players are used. The weight of
+ * a move is two for every game which the moving player has won, one for
+ * every game without a winner and zero for every lost game. Moves without
+ * weight and positions of too few games are left out.
+ *
+ * <p>
+ * Usage: {@code java abalone.model.OpeningBookBuilder [options] file...}.
+ * The options are
+ * <ul>
+ * <li>{@code -o <file>}: the book file, "book.bin" by default.
+ * <li>{@code -s <size>}: the board size of the book, 9 by default. Games of
+ * other sizes are skipped.
+ * <li>{@code -d <moves>}: the number of moves of every game which are added,
+ * 10 by default.
+ * <li>{@code -m <games>}: the number of games a position must occur in to
+ * be added, 2 by default.
+ * </ul>
+ */
+public final class OpeningBookBuilder {
+    /**
+     * The book file.
+     */
+    private Path output = Paths.get("book.bin");
+
+    /**
+     * The board size of the book.
+     */
+    private int size = 9;
+
+    /**
+     * The number of moves of every game which are added.
+     */
+    private int depth = 10;
+
+    /**
+     * The number of games a position must occur in to be added.
+     */
+    private int minGames = 2;
+
+    /**
+     * The game record files.
+     */
+    private final List<Path> files = new ArrayList<>();
+
+    /**
+     * The statistics of the moves by the hash of their position. The
+     * statistics of a move are indexed by the packed move and hold the number
+     * of games, the weight and the lowest number of moves before the
+     * position.
+     */
+    private final Map<Long, Map<Integer, long[]>> positions = new HashMap<>();
+
+    /**
+     * Cannot instantiate the builder outside of this class.
+     */
+    private OpeningBookBuilder() {
+    }
+
+    /**
+     * Main method of the builder.
+     *
+     * @param args The options and the game record files.
+     */
+    public static void main(String[] args) {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+
+        try {
+            builder.parse(args);
+        } catch (IllegalArgumentException
+                | ArrayIndexOutOfBoundsException ex) {
+            System.out.println("Error! Invalid arguments. " + ex.getMessage());
+            return;
+        }
+
+        try {
+            int games = 0;
+
+            for (Path file : builder.files) {
+                games += builder.addGames(file);
+            }
+            int entries = builder.write();
+            System.out.println("games " + games + ", positions "
+                    + builder.positions.size() + ", entries " + entries);
+        } catch (IOException ex) {
+            System.out.println("Error! " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Parse the options and the files.
+     *
+     * @param args The options and the files.
+     * @throws IllegalArgumentException If an option is not valid.
+     */
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-o":
+                    output = Paths.get(args[++i]);
+                    break;
+                case "-s":
+                    size = Integer.parseInt(args[++i]);
+                    break;
+                case "-d":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                case "-m":
+                    minGames = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    files.add(Paths.get(args[i]));
+                    break;
+            }
+        }
+
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No files given.");
+        } else if (depth < 1 || depth > Short.MAX_VALUE || minGames < 1) {
+            throw new IllegalArgumentException("Numbers must be positive.");
+        } else if (size < Board.MIN_SIZE || size % 2 == 0
+                || Topology.get(size).getCells() > 1 << 12) {
+            throw new IllegalArgumentException("Invalid size: " + size);
+        }
+    }
+
+    /**
+     * Add the first moves of the games of a record file with the size of the
+     * book.
+     *
+     * @param file The game record file.
+     * @return The number of added games.
+     * @throws IOException If the file cannot be read or is not valid.
+     */
+    private int addGames(Path file) throws IOException {
+        int games = 0;
+
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            while (reader.next()) {
+                if (reader.getSize() == size) {
+                    addGame(reader.read());
+                    games++;
+                }
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Add the first moves of a game.
+     *
+     * @param record The record of the game.
+     */
+    private void addGame(GameRecord record) {
+        Player opener = record.getOpeningPlayer();
+        SearchBoard board = (SearchBoard) RecordFormat.REPLAY_TYPE.create(
+                size, opener, 1);
+        SearchBoard rotated = (SearchBoard) RecordFormat.REPLAY_TYPE.create(
+                size, opener.other(), 1);
+        int[] buffer = new int[board.getMoveCapacity()];
+        List<Move> moves = record.getMoves();
+
+        for (int ply = 0; ply < Math.min(depth, moves.size()); ply++) {
+            Move move = moves.get(ply);
+            int packed = RecordFormat.find(board, move, buffer);
+            int rotatedPacked = RecordFormat.find(rotated, rotate(move),
+                    buffer);
+
+            if (board.getNextPlayer() == Player.MACHINE) {
+                addMove(board.getHash(), packed, ply,
+                        getWeight(record.getWinner(), Player.MACHINE));
+            } else {
+                addMove(rotated.getHash(), rotatedPacked, ply,
+                        getWeight(record.getWinner(), Player.HUMAN));
+            }
+            board.makeMove(packed);
+            rotated.makeMove(rotatedPacked);
+        }
+    }
+
+    /**
+     * Add a move of a game.
+     *
+     * @param key The hash of the position before the move.
+     * @param move The packed move.
+     * @param ply The number of moves before the position.
+     * @param weight The weight of the move in the game.
+     */
+    private void addMove(long key, int move, int ply, int weight) {
+        long[] statistics = positions.computeIfAbsent(key,
+                k -> new HashMap<>()).computeIfAbsent(move,
+                m -> new long[] {0, 0, ply});
+        statistics[0]++;
+        statistics[1] += weight;
+        statistics[2] = Math.min(statistics[2], ply);
+    }
+
+    /**
+     * Write the moves of the positions of enough games to the book file.
+     *
+     * @return The number of entries of the book.
+     * @throws IOException If the book cannot be written.
+     */
+    private int write() throws IOException {
+        long[] keys = new long[positions.size()];
+        int count = 0;
+
+        for (Map.Entry<Long, Map<Integer, long[]>> position
+                : positions.entrySet()) {
+            long games = 0;
+
+            for (long[] statistics : position.getValue().values()) {
+                games += statistics[0];
+            }
+
+            if (games >= minGames) {
+                keys[count++] = position.getKey();
+            }
+        }
+        keys = Arrays.copyOf(keys, count);
+        Arrays.sort(keys);
+        List<long[]> entries = new ArrayList<>();
+
+        for (long key : keys) {
+            Map<Integer, long[]> moves = positions.get(key);
+            Integer[] packedMoves = moves.keySet().toArray(new Integer[0]);
+            Arrays.sort(packedMoves);
+
+            for (int move : packedMoves) {
+                long[] statistics = moves.get(move);
+
+                if (statistics[1] > 0) {
+                    entries.add(new long[] {key, Math.min(statistics[1],
+                            Integer.MAX_VALUE), move, statistics[2]});
+                }
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(output)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeByte(OpeningBook.VERSION);
+            out.writeByte(size);
+            out.writeShort(0);
+            out.writeInt(entries.size());
+            out.writeInt(depth);
+
+            for (long[] entry : entries) {
+                out.writeLong(entry[0]);
+                out.writeInt((int) entry[1]);
+                out.writeShort((int) entry[2]);
+                out.writeShort((int) entry[3]);
+            }
+        }
+        return entries.size();
+    }
+
+    /**
+     * Get the weight of a move of a player in a game.
+     *
+     * @param winner The winner of the game or {@code null} if it is not over.
+     * @param player The moving player.
+     * @return The weight.
+     */
+    private static int getWeight(Player winner, Player player) {
+        if (winner == null) {
+            return 1;
+        } else if (winner == player) {
+            return 2;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Get the move with the coordinates of the board rotated by 180 degrees.
+     *
+     * @param move The move.
+     * @return The rotated move.
+     */
+    private Move rotate(Move move) {
+        int last = size - 1;
+        return new Move(last - move.getRowFrom(), last - move.getDiagFrom(),
+                last - move.getRowTo(), last - move.getDiagTo());
+    }
+}
@@ -0,0 +1,109 @@
+package abalone.model;
+
+/**
+ * Moves of the search packed into an int, so the search can generate and
+ * order them in reusable int arrays without creating objects. A packed move
+ * holds the slot of the moved ball, the direction of the move and a flag which
+ * is set if the move pushes out a ball of the other player.
+ *
+ * <p>
+ * The slot is the cell of the ball in the {@link Topology} of the board size
+ * and the direction is the index of the move vector in
+ * {@code {{0, 1}, {1, 1}, {1, 0}, {0, -1}, {-1, -1}, {-1, 0}}}, the order
+ * of the valid move vectors of the boards and the topology. A packed move can
+ * only be made in the position it was generated for.
+ */
+final class PackedMove {
+    /**
+     * The packed move of positions without a move. No packed move is
+     * negative.
+     */
+    static final int NONE = -1;
+
+    /**
+     * The number of directions a ball can be moved to.
+     */
+    static final int DIRECTIONS = 6;
+
+    /**
+     * The flag of a move which pushes out a ball of the other player.
+     */
+    private static final int PUSH_OUT = 1 << 3;
+
+    /**
+     * The number of bits below the slot.
+     */
+    private static final int SLOT_SHIFT = 4;
+
+    /**
+     * Cannot instantiate utility class.
+     */
+    private PackedMove() {
+    }
+
+    /**
+     * Pack a move into an int.
+     *
+     * @param slot The slot of the moved ball.
+     * @param dir The direction of the move.
+     * @param pushOut If the move pushes out a ball of the other player.
+     * @return The packed move.
+     */
+    static int pack(int slot, int dir, boolean pushOut) {
+        return slot << SLOT_SHIFT | (pushOut ? PUSH_OUT : 0) | dir;
+    }
+
+    /**
+     * Get the slot of the moved ball.
+     *
+     * @param move The packed move.
+     * @return The slot.
+     */
+    static int getSlot(int move) {
+        return move >>> SLOT_SHIFT;
+    }
+
+    /**
+     * Get the direction of a move.
+     *
+     * @param move The packed move.
+     * @return The direction.
+     */
+    static int getDirection(int move) {
+        return move & (PUSH_OUT - 1);
+    }
+
+    /**
+     * Checks if a move pushes out a ball of the other player.
+     *
+     * @param move The packed move.
+     * @return {@code true} iff the move pushes out a ball.
+     */
+    static boolean isPushOut(int move) {
+        return (move & PUSH_OUT) != 0;
+    }
+
+    /**
+     * Get the index of a move among all moves of a board size from its slot
+     * and direction. The push out flag is ignored.
+     *
+     * @param move The packed move.
+     * @return The index which is lower than {@code size * size * 6}.
+     */
+    static int getIndex(int move) {
+        return getSlot(move) * DIRECTIONS + getDirection(move);
+    }
+
+    /**
+     * Get the string representation of a move with the coordinates of its
+     * board size.
+     *
+     * @param move The packed move.
+     * @param size The size of the board.
+     * @return The string representation or {@code null} if the move is
+     *         {@link #NONE}.
+     */
+    static String toString(int move, int size) {
+        return move == NONE ? null : Topology.get(size).toMove(move).toString();
+    }
+}
@@ -0,0 +1,18 @@
+package abalone.model;
+
+/**
+ * The ways the machine can use the threads of its pool.
+ */
+public enum ParallelMode {
+    /**
+     * The moves of the machine are split between the threads.
+     */
+    ROOT_SPLIT,
+
+    /**
+     * Every thread searches all moves in its own order and at its own depths
+     * and the threads share their results through the transposition table
+     * (Lazy SMP). Only the result of the calling thread is used.
+     */
+    LAZY_SMP
+}
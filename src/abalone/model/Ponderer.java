@@ -0,0 +1,316 @@
+package abalone.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Searches the replies of the machine to the moves of the human while the
+ * human thinks. When the human has moved, the reply to the move is taken
+ * from the pondered replies, so the machine answers almost instantly. The
+ * searches share the transposition table of the game, so even the replies
+ * to moves which have not been pondered yet are found faster.
+ *
+ * <p>
+ * The moves of the human are pondered one after another on a background
+ * thread, starting with the moves which leave the machine with the lowest
+ * score, since they are the most likely ones. A reply is the board which
+ * {@link Board#machineMove(CancellationToken)} returns for the board after
+ * the move, so it is the same move the machine would have chosen without
+ * pondering. A reply is only taken if its position equals the board after
+ * the move of the human, not just its hash. Stopping the ponderer cancels
+ * the running search.
+ */
+public final class Ponderer {
+    /**
+     * The board on which the human moves next or {@code null} if no replies
+     * are pondered.
+     */
+    private Board board;
+
+    /**
+     * The level of the machine in the pondered replies.
+     */
+    private int level;
+
+    /**
+     * The time limit of the machine in the pondered replies in milliseconds
+     * or 0 if the level is used.
+     */
+    private long timeLimit;
+
+    /**
+     * The searches of the replies by the hash of the position after the move
+     * of the human.
+     */
+    private Map<Long, Reply> replies = Collections.emptyMap();
+
+    /**
+     * The reply which is taken by {@link #getReply(Board, int, long)} and
+     * whose search is only cancelled by {@link #stop()} or {@code null}.
+     */
+    private Reply taken;
+
+    /**
+     * The token which stops the current background thread.
+     */
+    private CancellationToken stopped = new CancellationToken();
+
+    /**
+     * Start to ponder the replies to the moves of the human on the given
+     * board. The replies of an earlier board are dropped. Nothing happens if
+     * the board is already pondered with the same settings or if it is not
+     * the human's turn.
+     *
+     * @param board The board on which the human moves next.
+     * @param level The level of the machine.
+     * @param timeLimit The time limit of the machine in milliseconds or 0 to
+     *                  use the level.
+     */
+    public synchronized void start(Board board, int level, long timeLimit) {
+        if (board == this.board && level == this.level
+                && timeLimit == this.timeLimit) {
+            return;
+        }
+        stop();
+
+        if (board.isGameOver() || board.getNextPlayer() != Player.HUMAN) {
+            return;
+        }
+        // The table is created on the game board, so the copies share it.
+        ((SearchBoard) board).getTable();
+        SearchBoard position = ((SearchBoard) board).copy();
+        position.setLevel(level);
+        List<Reply> tasks = new ArrayList<>();
+        replies = new HashMap<>();
+
+        for (int move : getLikelyMoves(position)) {
+            position.makeMove(move);
+            SearchBoard next = position.copy();
+            position.unmakeMove();
+            Reply reply = new Reply(position, next,
+                    Topology.get(position.getSize()).toMove(move), timeLimit);
+            replies.put(next.getHash(), reply);
+            tasks.add(reply);
+        }
+        this.board = board;
+        this.level = level;
+        this.timeLimit = timeLimit;
+        CancellationToken stop = stopped;
+        Thread thread = new Thread(() -> {
+            for (Reply reply : tasks) {
+                if (stop.isCancelled()) {
+                    break;
+                }
+                reply.run();
+            }
+        });
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.setName("Ponder-Thread");
+        thread.start();
+    }
+
+    /**
+     * Stop pondering and drop the replies. The search of the current reply
+     * and of a taken reply is cancelled without waiting for it.
+     */
+    public synchronized void stop() {
+        stop(null);
+    }
+
+    /**
+     * Stop pondering and drop the replies except the one which is taken.
+     *
+     * @param kept The taken reply whose search is not cancelled or
+     *             {@code null}.
+     */
+    private void stop(Reply kept) {
+        stopped.cancel();
+        stopped = new CancellationToken();
+
+        for (Reply reply : replies.values()) {
+            if (reply != kept) {
+                reply.token.cancel();
+            }
+        }
+
+        if (taken != null && taken != kept) {
+            taken.token.cancel();
+        }
+        taken = kept;
+        replies = Collections.emptyMap();
+        board = null;
+    }
+
+    /**
+     * Get the pondered reply of the machine and stop pondering. If the reply
+     * is still searched, this method waits for the search. If it has not
+     * been searched yet, it is searched on the calling thread. If
+     * {@link #stop()} is called meanwhile, the search is cancelled and the
+     * best move found so far is returned.
+     *
+     * @param board The board after the move of the human.
+     * @param level The level of the machine.
+     * @param timeLimit The time limit of the machine in milliseconds or 0 to
+     *                  use the level.
+     * @return The board after the reply of the machine or {@code null} if
+     *         the move has not been pondered with the same settings.
+     */
+    public Board getReply(Board board, int level, long timeLimit) {
+        Reply task;
+
+        synchronized (this) {
+            task = this.board != null && level == this.level
+                    && timeLimit == this.timeLimit
+                    ? replies.get(((SearchBoard) board).getHash()) : null;
+
+            // A reply of another position with the same hash is not taken.
+            if (task != null && !isSamePosition(task.next, board)) {
+                task = null;
+            }
+            stop(task);
+        }
+
+        if (task == null) {
+            return null;
+        }
+        task.run();
+
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Search the reply of the machine to a move of the human.
+     *
+     * @param position The board on which the human moves next. It is not
+     *                 changed.
+     * @param move The move of the human.
+     * @param timeLimit The time limit of the machine in milliseconds or 0 to
+     *                  use the level.
+     * @param token The token which cancels the search.
+     * @return The board after the reply of the machine.
+     */
+    private static Board searchReply(Board position, Move move,
+                                     long timeLimit, CancellationToken token) {
+        Board next = position.move(move.getRowFrom(), move.getDiagFrom(),
+                move.getRowTo(), move.getDiagTo());
+        return timeLimit > 0 ? next.machineMove(timeLimit, token)
+                : next.machineMove(token);
+    }
+
+    /**
+     * Get whether two boards have the same balls and the same next player.
+     *
+     * @param first The first board.
+     * @param second The second board.
+     * @return {@code true} iff the positions are equal.
+     */
+    private static boolean isSamePosition(Board first, Board second) {
+        int size = first.getSize();
+
+        if (second.getSize() != size
+                || first.getNextPlayer() != second.getNextPlayer()) {
+            return false;
+        }
+
+        for (int row = 0; row < size; row++) {
+            for (int diag = 0; diag < size; diag++) {
+                if (first.isValidPosition(row, diag)
+                        && first.getSlot(row, diag)
+                        != second.getSlot(row, diag)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the moves of the human after which the machine moves, ordered by
+     * the score of the position after the move from the lowest to the
+     * highest score.
+     *
+     * @param position The board on which the human moves next. It is moved
+     *                 back and forth.
+     * @return The packed moves.
+     */
+    private static List<Integer> getLikelyMoves(SearchBoard position) {
+        int[] moves = new int[position.getMoveCapacity()];
+        int count = position.getPossibleMoves(Player.HUMAN, moves);
+        Map<Integer, Double> scores = new HashMap<>();
+        List<Integer> likelyMoves = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+
+            if (!position.isGameOver()
+                    && position.getNextPlayer() == Player.MACHINE) {
+                scores.put(moves[i], position.getScore(1));
+                likelyMoves.add(moves[i]);
+            }
+            position.unmakeMove();
+        }
+        likelyMoves.sort(Comparator.comparing(scores::get));
+        return likelyMoves;
+    }
+
+    /**
+     * The search of a reply of the machine with the token which cancels it.
+     */
+    private static final class Reply extends FutureTask<Board> {
+        /**
+         * The position after the move of the human.
+         */
+        private final Board next;
+
+        /**
+         * The token which cancels the search.
+         */
+        private final CancellationToken token;
+
+        /**
+         * Creates the search of a reply.
+         *
+         * @param position The board on which the human moves next. It is not
+         *                 changed.
+         * @param next The position after the move of the human.
+         * @param move The move of the human.
+         * @param timeLimit The time limit of the machine in milliseconds or 0
+         *                  to use the level.
+         */
+        Reply(Board position, Board next, Move move, long timeLimit) {
+            this(position, next, move, timeLimit, new CancellationToken());
+        }
+
+        /**
+         * Creates the search of a reply with the given token.
+         *
+         * @param position The board on which the human moves next. It is not
+         *                 changed.
+         * @param next The position after the move of the human.
+         * @param move The move of the human.
+         * @param timeLimit The time limit of the machine in milliseconds or 0
+         *                  to use the level.
+         * @param token The token which cancels the search.
+         */
+        private Reply(Board position, Board next, Move move, long timeLimit,
+                      CancellationToken token) {
+            super(() -> searchReply(position, move, timeLimit, token));
+            this.next = next;
+            this.token = token;
+        }
+    }
+}
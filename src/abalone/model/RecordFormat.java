@@ -0,0 +1,217 @@
+package abalone.model;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The binary format of the game record files, which is shared by
+ * {@link GameRecordWriter} and {@link GameRecordReader}.
+ *
+ * <p>
+ * A file starts with the magic number and the version of the format,
+ * followed by the records. A record has a fixed header of the size, the
+ * opening player, the levels of the human and the machine, the result and
+ * the number of moves. The moves follow the header with the same width
+ * each, so a reader can skip a record without decoding its moves.
+ *
+ * <p>
+ * A move is stored as the index of the moved ball among the balls of the
+ * moving player, which are ordered by their cells, times the number of
+ * directions plus the direction. It is one byte wide for the board sizes up
+ * to 27 and two bytes wide for the larger ones.
+ */
+final class RecordFormat {
+    /**
+     * The magic number at the start of a file.
+     */
+    static final int MAGIC = 0x41424752;
+
+    /**
+     * The version of the format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The length of the file header in bytes.
+     */
+    static final int FILE_HEADER_SIZE = 5;
+
+    /**
+     * The length of a record header in bytes.
+     */
+    static final int HEADER_SIZE = 9;
+
+    /**
+     * The result of a game which is not over.
+     */
+    static final int NO_WINNER = 0;
+
+    /**
+     * The board type on which the moves are encoded and replayed.
+     */
+    static final BoardType REPLAY_TYPE = BoardType.BITBOARD;
+
+    /**
+     * The move widths by the board size or 0 if they are not known yet.
+     */
+    private static final int[] MOVE_WIDTHS = new int[256];
+
+    /**
+     * Cannot instantiate utility class.
+     */
+    private RecordFormat() {
+    }
+
+    /**
+     * Get the width of a move on boards of the given size.
+     *
+     * @param size The size of the board.
+     * @return The number of bytes of a move.
+     */
+    static int getMoveWidth(int size) {
+        if (MOVE_WIDTHS[size] == 0) {
+            Board board = REPLAY_TYPE.create(size, Player.HUMAN, 1);
+            int balls = board.getNumberOfBalls(board.getHumanColor());
+            MOVE_WIDTHS[size] = balls * PackedMove.DIRECTIONS <= 256 ? 1 : 2;
+        }
+        return MOVE_WIDTHS[size];
+    }
+
+    /**
+     * Get the result of a game as it is stored in a record.
+     *
+     * @param winner The winner or {@code null} if the game is not over.
+     * @return The stored result.
+     */
+    static int toResult(Player winner) {
+        return winner == null ? NO_WINNER : winner.ordinal() + 1;
+    }
+
+    /**
+     * Get the winner of a stored result.
+     *
+     * @param result The stored result.
+     * @return The winner or {@code null} if the game is not over.
+     * @throws IllegalArgumentException If the result is not valid.
+     */
+    static Player toWinner(int result) {
+        if (result == NO_WINNER) {
+            return null;
+        } else if (result <= Player.values().length) {
+            return Player.values()[result - 1];
+        } else {
+            throw new IllegalArgumentException("Invalid result: " + result);
+        }
+    }
+
+    /**
+     * Encode a move of the next player of a board.
+     *
+     * @param board The board before the move.
+     * @param move The packed move.
+     * @return The code of the move.
+     */
+    static int encode(SearchBoard board, int move) {
+        Topology topology = Topology.get(board.getSize());
+        Color color = getNextColor(board);
+        int cell = PackedMove.getSlot(move);
+        int index = 0;
+
+        for (int i = 0; i < cell; i++) {
+            if (board.getSlot(topology.getRows()[i],
+                    topology.getDiags()[i]) == color) {
+                index++;
+            }
+        }
+        return index * PackedMove.DIRECTIONS + PackedMove.getDirection(move);
+    }
+
+    /**
+     * Decode a move of the next player of a board.
+     *
+     * @param board The board before the move.
+     * @param code The code of the move.
+     * @return The packed move.
+     * @throws IllegalArgumentException If the code is not a possible move.
+     */
+    static int decode(SearchBoard board, int code) {
+        int cell = board.getCell(board.getNextPlayer(),
+                code / PackedMove.DIRECTIONS);
+        int move = cell == Topology.OFF_BOARD || board.isGameOver()
+                ? PackedMove.NONE
+                : board.getPackedMove(cell, code % PackedMove.DIRECTIONS);
+
+        if (move == PackedMove.NONE) {
+            throw new IllegalArgumentException("Invalid move code: " + code);
+        }
+        return move;
+    }
+
+    /**
+     * Find the packed move of the next player with the coordinates of a
+     * move.
+     *
+     * @param board The board before the move.
+     * @param move The move.
+     * @param moves The buffer for the possible moves of the board.
+     * @return The packed move.
+     * @throws IllegalArgumentException If the move is not possible.
+     */
+    static int find(SearchBoard board, Move move, int[] moves) {
+        Topology topology = Topology.get(board.getSize());
+        int count = board.isGameOver() ? 0
+                : board.getPossibleMoves(board.getNextPlayer(), moves);
+
+        for (int i = 0; i < count; i++) {
+            Move candidate = topology.toMove(moves[i]);
+
+            if (candidate.getRowFrom() == move.getRowFrom()
+                    && candidate.getDiagFrom() == move.getDiagFrom()
+                    && candidate.getRowTo() == move.getRowTo()
+                    && candidate.getDiagTo() == move.getDiagTo()) {
+                return moves[i];
+            }
+        }
+        throw new IllegalArgumentException("Invalid move: " + move);
+    }
+
+    /**
+     * Get the color of the next player of a board.
+     *
+     * @param board The board.
+     * @return The color.
+     */
+    private static Color getNextColor(Board board) {
+        return board.getNextPlayer() == Player.HUMAN
+                ? board.getHumanColor() : board.getHumanColor().other();
+    }
+
+    /**
+     * Check the header of an existing file.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be read or is no record file.
+     */
+    static void checkHeader(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            checkHeader(new DataInputStream(in));
+        }
+    }
+
+    /**
+     * Read and check the header of a file.
+     *
+     * @param in The stream at the start of the file.
+     * @throws IOException If the header cannot be read or is not valid.
+     */
+    static void checkHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a game record file!");
+        } else if (in.readUnsignedByte() != VERSION) {
+            throw new IOException("Unknown version of the record file!");
+        }
+    }
+}
@@ -0,0 +1,891 @@
+package abalone.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.DoubleAccumulator;
+
+/**
+ * Depth-first search of the machine which scores the game tree without
+ * building it. The moves are made and undone on a single board and are
+ * generated as packed ints into one reused array per height, so the memory
+ * grows with the depth of the search and not with the size of the game tree.
+ * On the calling thread searching a position allocates nothing. A search
+ * without a pool only allocates once: the move buffers and the ranking
+ * buffers of the move ordering for every height, the history of the move
+ * ordering and the moves of the root. A search with a pool also allocates a
+ * search with these buffers and a copy of the board for every helper or,
+ * when the moves of the root are split, for every move of the machine in
+ * every iteration.
+ *
+ * <p>
+ * The scores are the same as the scores of the {@link TreeNode} tree built by
+ * {@link AbaloneBoard}: every position adds its own score to the best score of
+ * its children.
+ *
+ * <p>
+ * With a time limit the search deepens iteratively from depth 1 and returns
+ * the best move of the deepest completed iteration. The best move of an
+ * iteration is searched first in the next one and the transposition table
+ * orders the moves below the root. A search with only a cancellation token
+ * keeps its depth and falls back to depth 1 when it is cancelled.
+ *
+ * <p>
+ * With a pool the search runs in parallel, each thread on its own copy of the
+ * board. Either the moves of the machine are split between the threads or
+ * helper threads search the same tree and fill the shared transposition
+ * table (Lazy SMP). The chosen move is the same as without a pool.
+ */
+final class Search {
+    /**
+     * The maximum depth of a search with a time limit.
+     */
+    static final int MAX_DEPTH = 64;
+
+    /**
+     * The number of positions between two checks of the clock.
+     */
+    private static final int CLOCK_INTERVAL = 1024;
+
+    /**
+     * The margin by which the window of the children is widened. The window
+     * gets shifted by the score of the parent and the rounding of this shift
+     * must never turn an equal score into a cutoff.
+     */
+    static final double MARGIN = 1e-3;
+
+    /**
+     * The maximum height of the searched positions.
+     */
+    private final int maxDepth;
+
+    /**
+     * The maximum height of the positions in the current iteration.
+     */
+    private int depth;
+
+    /**
+     * The algorithm used to score the positions.
+     */
+    private final SearchMode mode;
+
+    /**
+     * The table of already scored positions or {@code null} if none is used.
+     */
+    private final TranspositionTable table;
+
+    /**
+     * The pool which searches the moves of the machine in parallel or
+     * {@code null} if they are searched one after another.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The way the threads of the pool are used.
+     */
+    private final ParallelMode parallelMode;
+
+    /**
+     * The data of the last probed table entry.
+     */
+    private final long[] entry = new long[2];
+
+    /**
+     * The arrays which receive the possible moves of each height.
+     */
+    private int[][] moveBuffers = new int[0][];
+
+    /**
+     * The move ordering of this thread or {@code null} if no position has
+     * been searched in alpha-beta mode yet.
+     */
+    private MoveOrdering ordering;
+
+    /**
+     * The number of scored positions.
+     */
+    private long nodes;
+
+    /**
+     * The number of calls of the evaluation of a position.
+     */
+    private long evaluations;
+
+    /**
+     * The number of positions whose remaining moves were cut off.
+     */
+    private long cutoffs;
+
+    /**
+     * The number of lookups in the transposition table.
+     */
+    private long tableProbes;
+
+    /**
+     * The number of lookups in the transposition table which found their
+     * position.
+     */
+    private long tableHits;
+
+    /**
+     * The value of {@link System#nanoTime()} at the start of the search.
+     */
+    private long startTime;
+
+    /**
+     * The time the search took in nanoseconds.
+     */
+    private long time;
+
+    /**
+     * The peak heap usage of the JVM sampled during the search in bytes.
+     */
+    private long peakMemory;
+
+    /**
+     * The value of {@link System#nanoTime()} at which the search stops or
+     * {@code null} if the current iteration must be completed.
+     */
+    private Long deadline;
+
+    /**
+     * The token which cancels the search or {@code null} if the current
+     * iteration must be completed.
+     */
+    private CancellationToken token;
+
+    /**
+     * If the time has run out or the search has been cancelled and the
+     * current iteration is abandoned.
+     */
+    private boolean stopped;
+
+    /**
+     * If the search has been cancelled by another thread.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * If this search is a helper of a Lazy SMP search, which also takes the
+     * scores of deeper entries of the table.
+     */
+    private boolean helper;
+
+    /**
+     * If a score of the current subtree was derived from the score of a
+     * deeper entry of the table.
+     */
+    private boolean approximate;
+
+    /**
+     * The task which runs this search if it is a helper of a Lazy SMP search.
+     */
+    private ForkJoinTask<?> helperTask;
+
+    /**
+     * The depth of the deepest completed iteration.
+     */
+    private int completedDepth;
+
+    /**
+     * Creates a new search.
+     *
+     * @param depth The maximum height of the searched positions.
+     * @param mode The algorithm used to score the positions.
+     * @param table The table of already scored positions which is only used
+     *              in alpha-beta mode or {@code null}.
+     */
+    Search(int depth, SearchMode mode, TranspositionTable table) {
+        this(depth, mode, table, null, ParallelMode.ROOT_SPLIT);
+    }
+
+    /**
+     * Creates a new search which runs in parallel.
+     *
+     * @param depth The maximum height of the searched positions.
+     * @param mode The algorithm used to score the positions.
+     * @param table The table of already scored positions which is only used
+     *              in alpha-beta mode or {@code null}.
+     * @param pool The pool which runs the search or {@code null} to search
+     *             on the calling thread only.
+     * @param parallelMode The way the threads of the pool are used.
+     */
+    Search(int depth, SearchMode mode, TranspositionTable table,
+           ForkJoinPool pool, ParallelMode parallelMode) {
+        maxDepth = depth;
+        this.depth = depth;
+        this.mode = mode;
+        this.table = mode == SearchMode.ALPHA_BETA ? table : null;
+        this.pool = pool;
+        this.parallelMode = parallelMode;
+    }
+
+    /**
+     * Find the move with the highest score for the machine. The first of
+     * equally scored moves wins.
+     *
+     * @param board The board on which the machine moves next. It is moved
+     *              back and forth during the search and gets restored at the
+     *              end.
+     * @return The packed best move.
+     */
+    int findBestMove(SearchBoard board) {
+        return findBestMove(board, null);
+    }
+
+    /**
+     * Find the move with the highest score for the machine with the maximum
+     * depth like {@link #findBestMove(SearchBoard)} unless the token is
+     * cancelled. A cancelled search is abandoned and the best move of a
+     * search of depth 1 is returned instead.
+     *
+     * @param board The board on which the machine moves next. It is moved
+     *              back and forth during the search and gets restored at the
+     *              end.
+     * @param token The token which cancels the search or {@code null}.
+     * @return The packed best move.
+     */
+    int findBestMove(SearchBoard board, CancellationToken token) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        startClock();
+        int[] moves = getRootMoves(board);
+        int bestIndex;
+
+        if (table != null) {
+            table.newSearch();
+        }
+        List<Search> helpers = startHelpers(board);
+        this.token = token;
+
+        try {
+            bestIndex = searchRoot(board, moves, 0);
+
+            // A cancelled search plays the best move of depth 1, which is
+            // searched without the token.
+            if (stopped) {
+                stopped = false;
+                this.token = null;
+                depth = 1;
+                bestIndex = searchRoot(board, moves, 0);
+            }
+            completedDepth = depth;
+        } finally {
+            stopHelpers(helpers);
+            stopClock();
+        }
+        commitSearch(event, board, moves[bestIndex]);
+        return moves[bestIndex];
+    }
+
+    /**
+     * Find the move with the highest score for the machine by searching
+     * deeper and deeper until the time limit is reached, the maximum depth is
+     * completed or the token is cancelled. The first iteration is always
+     * completed.
+     *
+     * @param board The board on which the machine moves next. It is moved
+     *              back and forth during the search and gets restored at the
+     *              end.
+     * @param timeLimit The time limit in milliseconds.
+     * @param token The token which cancels the search or {@code null}.
+     * @return The packed best move of the deepest completed iteration.
+     */
+    int findBestMove(SearchBoard board, long timeLimit,
+                     CancellationToken token) {
+        return deepen(board, System.nanoTime() + timeLimit * 1_000_000,
+                token);
+    }
+
+    /**
+     * Search deeper and deeper until the time runs out, the maximum depth is
+     * completed or the token is cancelled.
+     *
+     * @param board The board on which the machine moves next.
+     * @param stopTime The value of {@link System#nanoTime()} at which the
+     *                 search stops or {@code null} if it has no time limit.
+     * @param stopToken The token which cancels the search or {@code null}.
+     * @return The packed best move of the deepest completed iteration.
+     */
+    private int deepen(SearchBoard board, Long stopTime,
+                       CancellationToken stopToken) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        startClock();
+        int[] moves = getRootMoves(board);
+        int bestIndex = 0;
+
+        if (table != null) {
+            table.newSearch();
+        }
+        List<Search> helpers = startHelpers(board);
+
+        try {
+            for (depth = 1; depth <= maxDepth; depth++) {
+                SearchIterationEvent iteration = new SearchIterationEvent();
+                iteration.begin();
+                long iterationStart = nodes;
+                int index = searchRoot(board, moves, bestIndex);
+                commitIteration(iteration, board, nodes - iterationStart,
+                        stopped ? PackedMove.NONE : moves[index]);
+
+                if (stopped) {
+                    break;
+                }
+                bestIndex = index;
+                completedDepth = depth;
+
+                // Later iterations are abandoned when the time runs out or
+                // the search gets cancelled.
+                deadline = stopTime;
+                token = stopToken;
+
+                if (stopTime != null && System.nanoTime() - stopTime >= 0
+                        || stopToken != null && stopToken.isCancelled()) {
+                    break;
+                }
+            }
+        } finally {
+            stopHelpers(helpers);
+            stopClock();
+        }
+        commitSearch(event, board, moves[bestIndex]);
+        return moves[bestIndex];
+    }
+
+    /**
+     * Commit the flight recorder event of the search if it is enabled.
+     *
+     * @param event The begun event.
+     * @param board The board on which the machine moves next.
+     * @param move The packed best move.
+     */
+    private void commitSearch(SearchEvent event, SearchBoard board,
+                              int move) {
+        if (event.shouldCommit()) {
+            event.size = board.getSize();
+            event.maxDepth = maxDepth;
+            event.depth = completedDepth;
+            event.nodes = nodes;
+            event.move = PackedMove.toString(move, board.getSize());
+            event.commit();
+        }
+    }
+
+    /**
+     * Commit the flight recorder event of an iteration if it is enabled.
+     *
+     * @param event The begun event.
+     * @param board The board on which the machine moves next.
+     * @param iterationNodes The number of positions visited by the iteration.
+     * @param move The packed best move of the iteration or
+     *             {@link PackedMove#NONE} if it was abandoned.
+     */
+    private void commitIteration(SearchIterationEvent event,
+                                 SearchBoard board, long iterationNodes,
+                                 int move) {
+        if (event.shouldCommit()) {
+            event.size = board.getSize();
+            event.depth = depth;
+            event.nodes = iterationNodes;
+            event.completed = move != PackedMove.NONE;
+            event.move = PackedMove.toString(move, board.getSize());
+            event.commit();
+        }
+    }
+
+    /**
+     * Get the possible moves of the machine in the order of its balls.
+     *
+     * @param board The board on which the machine moves next.
+     * @return The packed moves.
+     */
+    private int[] getRootMoves(SearchBoard board) {
+        // The buffer of height 0 is not used by the search below the root.
+        int[] moves = getMoveBuffer(board, 0);
+        return Arrays.copyOf(moves,
+                board.getPossibleMoves(Player.MACHINE, moves));
+    }
+
+    /**
+     * Start the helper threads of a Lazy SMP search. Every thread of the pool
+     * except the calling one gets a helper which deepens iteratively on its
+     * own copy of the board. The helpers start with different moves of the
+     * machine, skip different iterations and order the moves below the root
+     * with a different initial history, so they search different parts of
+     * the tree first and share their results through the table.
+     *
+     * @param board The board on which the machine moves next.
+     * @return The running helpers.
+     */
+    private List<Search> startHelpers(SearchBoard board) {
+        List<Search> helpers = new ArrayList<>();
+
+        if (pool != null && table != null
+                && parallelMode == ParallelMode.LAZY_SMP) {
+            for (int i = 1; i < pool.getParallelism(); i++) {
+                // The copy is made before the calling thread moves the board.
+                SearchBoard copy = board.copy();
+                Search helper = new Search(maxDepth, mode, table);
+                helper.helper = true;
+                helper.ordering = new MoveOrdering(board.getSize(), i);
+                int number = i;
+                helper.helperTask = pool.submit(() -> helper.help(copy,
+                        number));
+                helpers.add(helper);
+            }
+        }
+        return helpers;
+    }
+
+    /**
+     * Cancel the helpers and wait for them to finish.
+     *
+     * @param helpers The running helpers.
+     */
+    private void stopHelpers(List<Search> helpers) {
+        for (Search helper : helpers) {
+            helper.cancelled = true;
+        }
+
+        for (Search helper : helpers) {
+            helper.helperTask.join();
+            addCounters(helper);
+        }
+    }
+
+    /**
+     * Search the moves of the machine as a helper of a Lazy SMP search until
+     * the maximum depth is completed or the search gets cancelled.
+     *
+     * <p>
+     * The helpers skip iterations in blocks of one or two depths with
+     * different phases, so at any time some of them search deeper than the
+     * calling thread and store entries it needs in its next iteration.
+     *
+     * @param board The copy of the board of the helper.
+     * @param number The number of the helper, starting at 1, which decides
+     *               the move it starts with and the iterations it skips.
+     */
+    private void help(SearchBoard board, int number) {
+        int[] moves = getRootMoves(board);
+        int skipSize = 1 + (number - 1) / 2 % 2;
+        int skipPhase = number % (2 * skipSize);
+
+        for (depth = 1; depth <= maxDepth && !stopped; depth++) {
+            if (depth < maxDepth && (depth + skipPhase) / skipSize % 2 != 0) {
+                continue;
+            }
+            searchRoot(board, moves, (number + depth) % moves.length);
+        }
+    }
+
+    /**
+     * Score the moves of the machine and find the one with the highest score.
+     * The first of equally scored moves in the given array wins, even if
+     * another move is searched first.
+     *
+     * @param board The board on which the machine moves next.
+     * @param moves The packed moves of the machine.
+     * @param firstIndex The index of the move which gets searched first.
+     * @return The index of the best move or -1 if the iteration is abandoned.
+     */
+    private int searchRoot(SearchBoard board, int[] moves, int firstIndex) {
+        if (pool != null && parallelMode == ParallelMode.ROOT_SPLIT
+                && moves.length > 1) {
+            return searchRootInParallel(board, moves, firstIndex);
+        }
+
+        // Use infinity to make sure the first move overwrites this variable.
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int bestIndex = -1;
+        nodes++;
+
+        for (int k = 0; k < moves.length; k++) {
+            // The first move is followed by the others in their order.
+            int i = k == 0 ? firstIndex : k <= firstIndex ? k - 1 : k;
+            boolean isEarlier = i < bestIndex;
+
+            // A move which is cut off has a score which is lower than the
+            // best score or not higher if it comes after the best move, so
+            // it never gets chosen.
+            board.makeMove(moves[i]);
+            double score = search(board, 1,
+                    isEarlier ? bestScore - MARGIN : bestScore,
+                    Double.POSITIVE_INFINITY);
+            board.unmakeMove();
+
+            if (stopped) {
+                return -1;
+            } else if (score > bestScore || isEarlier && score == bestScore) {
+                bestScore = score;
+                bestIndex = i;
+            }
+        }
+        return bestIndex;
+    }
+
+    /**
+     * Score the moves of the machine like
+     * {@link #searchRoot(SearchBoard, int[], int)}, but search all moves after
+     * the first one in parallel. The first move is searched alone to give the
+     * others a bound.
+     *
+     * <p>
+     * The workers share the best score found so far and lower it by the
+     * margin before they use it as alpha. A move which scores as high as the
+     * best move is never cut off, so the first of equally scored moves in the
+     * array wins no matter which worker finishes first.
+     *
+     * @param board The board on which the machine moves next. The workers
+     *              search on copies of it.
+     * @param moves The packed moves of the machine.
+     * @param firstIndex The index of the move which gets searched first.
+     * @return The index of the best move or -1 if the iteration is abandoned.
+     */
+    private int searchRootInParallel(SearchBoard board, int[] moves,
+                                     int firstIndex) {
+        double[] scores = new double[moves.length];
+        Search[] workers = new Search[moves.length];
+        nodes++;
+
+        board.makeMove(moves[firstIndex]);
+        scores[firstIndex] = search(board, 1, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY);
+        board.unmakeMove();
+
+        if (stopped) {
+            return -1;
+        }
+        DoubleAccumulator bestScore
+                = new DoubleAccumulator(Math::max, scores[firstIndex]);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+        for (int i = 0; i < moves.length; i++) {
+            if (i != firstIndex) {
+                Search worker = new Search(depth, mode, table);
+                worker.deadline = deadline;
+                worker.token = token;
+                workers[i] = worker;
+                int index = i;
+                tasks.add(pool.submit(() -> {
+                    scores[index] = worker.searchMove(board.copy(),
+                            moves[index], bestScore);
+                }));
+            }
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+
+        // Use infinity to make sure the first move overwrites this variable.
+        double best = Double.NEGATIVE_INFINITY;
+        int bestIndex = -1;
+
+        for (int i = 0; i < moves.length; i++) {
+            if (workers[i] != null) {
+                addCounters(workers[i]);
+                stopped |= workers[i].stopped;
+            }
+
+            if (scores[i] > best) {
+                best = scores[i];
+                bestIndex = i;
+            }
+        }
+        return stopped ? -1 : bestIndex;
+    }
+
+    /**
+     * Score a move of the machine in a worker of the parallel search.
+     *
+     * @param board The copy of the board of the worker.
+     * @param move The packed move to score.
+     * @param bestScore The best score of all workers so far.
+     * @return The score of the move or negative infinity if it is lower than
+     *         the best score.
+     */
+    private double searchMove(SearchBoard board, int move,
+                              DoubleAccumulator bestScore) {
+        // A worker which starts after the search has stopped does nothing.
+        if (isStopRequested()) {
+            stopped = true;
+            return Double.NEGATIVE_INFINITY;
+        }
+        double alpha = bestScore.get() - MARGIN;
+        board.makeMove(move);
+        double score = search(board, 1, alpha, Double.POSITIVE_INFINITY);
+        board.unmakeMove();
+
+        if (!stopped && score > alpha) {
+            bestScore.accumulate(score);
+            return score;
+        } else {
+            return Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Score a board with its own score and the best score of its children if
+     * the maximum height is not yet reached and the game is not over.
+     *
+     * <p>
+     * In alpha-beta mode the remaining children are skipped as soon as the
+     * score lies outside the window of alpha and beta. The score is then only
+     * a bound of the minimax score (fail-soft). Positions which are already
+     * in the table with the same remaining depth are not searched again if
+     * their stored score decides the window.
+     *
+     * @param board The board to score.
+     * @param height The height of the board in the game tree.
+     * @param alpha The score the machine is already assured of.
+     * @param beta The score the human is already assured of.
+     * @return The score of the board.
+     */
+    private double search(SearchBoard board, int height, double alpha,
+                          double beta) {
+        nodes++;
+
+        if (nodes % CLOCK_INTERVAL == 0) {
+            sampleMemory();
+
+            if (isStopRequested()) {
+                stopped = true;
+            }
+        }
+
+        // The score of a stopped search is never used, so the position is
+        // not scored.
+        if (stopped) {
+            return 0;
+        }
+
+        if (height < depth && !board.isGameOver()) {
+            Player player = board.getNextPlayer();
+            int remainingDepth = depth - height;
+            long key = 0;
+            int tableMove = PackedMove.NONE;
+
+            if (table != null) {
+                key = board.getHash() ^ Zobrist.getHeightKey(height);
+                tableProbes++;
+
+                if (table.probe(key, entry)) {
+                    tableHits++;
+                    tableMove = TranspositionTable.getMove(entry);
+                    int tableDepth = TranspositionTable.getDepth(entry);
+                    boolean isApproximate = tableDepth != remainingDepth
+                            || TranspositionTable.isApproximate(entry);
+
+                    // Scores of other depths are not comparable, because every
+                    // position adds its own score. Only the helpers take them
+                    // as an estimate, so the chosen move does not change.
+                    if (isApproximate ? helper && tableDepth >= remainingDepth
+                            : tableDepth == remainingDepth) {
+                        double tableScore = TranspositionTable.getScore(entry);
+                        int type = TranspositionTable.getType(entry);
+
+                        if (type == TranspositionTable.EXACT
+                                || type == TranspositionTable.LOWER
+                                && tableScore >= beta
+                                || type == TranspositionTable.UPPER
+                                && tableScore <= alpha) {
+                            approximate |= isApproximate;
+                            return tableScore;
+                        }
+                    }
+                }
+            }
+            boolean outerApproximate = approximate;
+            approximate = false;
+
+            // A position whose score is taken from the table is not scored.
+            double score = evaluate(board, height);
+
+            // Use infinity to make sure the first move overwrites this
+            // variable.
+            double bestChildScore = player == Player.HUMAN
+                    ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+            int bestChildMove = PackedMove.NONE;
+
+            // The score of this position gets added to the best child score,
+            // so the window of the children is shifted by it.
+            double lowerLimit = alpha - score - MARGIN;
+            double upperLimit = beta - score + MARGIN;
+            double childAlpha = lowerLimit;
+            double childBeta = upperLimit;
+            int[] moves = getMoveBuffer(board, height);
+            int count = board.getPossibleMoves(player, moves);
+
+            // The moves which most likely cause a cutoff are tried first.
+            if (mode == SearchMode.ALPHA_BETA) {
+                if (ordering == null) {
+                    ordering = new MoveOrdering(board.getSize());
+                }
+                ordering.order(moves, count, player, height, tableMove);
+            }
+
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                board.makeMove(move);
+                double childScore = search(board, height + 1, childAlpha,
+                        childBeta);
+                board.unmakeMove();
+
+                // An abandoned search must not store its scores.
+                if (stopped) {
+                    return score;
+                }
+
+                if (player == Player.HUMAN) {
+                    if (childScore < bestChildScore) {
+                        bestChildScore = childScore;
+                        bestChildMove = move;
+                    }
+                    childBeta = Math.min(childBeta, bestChildScore);
+                } else {
+                    if (childScore > bestChildScore) {
+                        bestChildScore = childScore;
+                        bestChildMove = move;
+                    }
+                    childAlpha = Math.max(childAlpha, bestChildScore);
+                }
+
+                // The player before would never allow this position.
+                if (mode == SearchMode.ALPHA_BETA && childAlpha >= childBeta) {
+                    cutoffs++;
+                    ordering.addCutoff(move, player, height, remainingDepth);
+                    break;
+                }
+            }
+            score += bestChildScore;
+
+            if (table != null) {
+                int type = TranspositionTable.EXACT;
+
+                if (bestChildScore <= lowerLimit) {
+                    type = TranspositionTable.UPPER;
+                } else if (bestChildScore >= upperLimit) {
+                    type = TranspositionTable.LOWER;
+                }
+                table.store(key, remainingDepth, score, type, bestChildMove,
+                        approximate);
+            }
+            approximate |= outerApproximate;
+            return score;
+        }
+        return evaluate(board, height);
+    }
+
+    /**
+     * Get the own score of a board and count the evaluation.
+     *
+     * @param board The board to score.
+     * @param height The height of the board in the game tree.
+     * @return The score of the board without its children.
+     */
+    private double evaluate(SearchBoard board, int height) {
+        evaluations++;
+        return board.getScore(height);
+    }
+
+    /**
+     * Start to measure the time and the peak heap usage of the search.
+     */
+    private void startClock() {
+        startTime = System.nanoTime();
+        sampleMemory();
+    }
+
+    /**
+     * Stop to measure the time and the peak heap usage of the search.
+     */
+    private void stopClock() {
+        time = System.nanoTime() - startTime;
+        sampleMemory();
+    }
+
+    /**
+     * Raise the peak heap usage to the current heap usage of the JVM if it
+     * is higher.
+     */
+    private void sampleMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        peakMemory = Math.max(peakMemory,
+                runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    /**
+     * Add the counters of a worker or helper which has finished to the
+     * counters of this search.
+     *
+     * @param other The finished search.
+     */
+    private void addCounters(Search other) {
+        nodes += other.nodes;
+        evaluations += other.evaluations;
+        cutoffs += other.cutoffs;
+        tableProbes += other.tableProbes;
+        tableHits += other.tableHits;
+        peakMemory = Math.max(peakMemory, other.peakMemory);
+    }
+
+    /**
+     * Check whether the search has been cancelled or the time has run out.
+     *
+     * @return {@code true} iff the current iteration must be abandoned.
+     */
+    private boolean isStopRequested() {
+        return cancelled || token != null && token.isCancelled()
+                || deadline != null && System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * Get the array which receives the possible moves of a height and create
+     * it if it does not exist yet.
+     *
+     * @param board The board of the search.
+     * @param height The height.
+     * @return The array.
+     */
+    private int[] getMoveBuffer(SearchBoard board, int height) {
+        if (height >= moveBuffers.length) {
+            moveBuffers = Arrays.copyOf(moveBuffers, height + 1);
+        }
+
+        if (moveBuffers[height] == null) {
+            moveBuffers[height] = new int[board.getMoveCapacity()];
+        }
+        return moveBuffers[height];
+    }
+
+    /**
+     * Get the number of positions scored so far.
+     *
+     * @return The number of scored positions.
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Get the depth of the deepest completed search.
+     *
+     * @return The completed depth.
+     */
+    int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Get the statistics of the finished search.
+     *
+     * @return The statistics.
+     */
+    SearchStatistics getStatistics() {
+        return new SearchStatistics(nodes, time, completedDepth, evaluations,
+                cutoffs, tableProbes, tableHits, peakMemory, false);
+    }
+}
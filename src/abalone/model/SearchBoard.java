@@ -0,0 +1,362 @@
+package abalone.model;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A board on which the machine's search makes and undoes moves in place
+ * instead of copying the board for every position. The methods are
+ * package-private, so the boards stay immutable for the users of the
+ * {@link Board} interface.
+ */
+abstract class SearchBoard implements Board {
+    /**
+     * The default memory cap of the transposition table in megabytes.
+     */
+    private static final int DEFAULT_TABLE_SIZE = 16;
+
+    /**
+     * The memory cap of the transposition table in megabytes.
+     */
+    private int tableSize = DEFAULT_TABLE_SIZE;
+
+    /**
+     * The transposition table which is shared by all boards of a game or
+     * {@code null} if it has not been used yet.
+     */
+    private TranspositionTable table;
+
+    /**
+     * The pool which searches the moves of the machine in parallel or
+     * {@code null} if the machine searches on the calling thread.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * The way the machine uses the threads of its pool.
+     */
+    private ParallelMode parallelMode = ParallelMode.ROOT_SPLIT;
+
+    /**
+     * The opening book of the machine or {@code null} if it always searches.
+     */
+    private OpeningBook book;
+
+    /**
+     * The statistics of the machine move which created this board or
+     * {@code null} if it was not created by a machine move.
+     */
+    SearchStatistics statistics;
+
+    /**
+     * Sets the memory cap of the transposition table the machine uses to
+     * remember the scores of already searched positions. The table is shared
+     * by all following boards of the game and the old entries are dropped.
+     *
+     * @param megabytes The memory cap or 0 to disable the table.
+     * @throws IllegalArgumentException If the memory cap is negative.
+     */
+    public void setTableSize(int megabytes) {
+        if (megabytes < 0) {
+            throw new IllegalArgumentException("Table size must not be "
+                    + "negative!");
+        } else {
+            tableSize = megabytes;
+            table = null;
+        }
+    }
+
+    /**
+     * Get the transposition table of the game and create it if it does not
+     * exist yet. Boards which are copied after the table has been created
+     * share it.
+     *
+     * @return The transposition table or {@code null} if it is disabled.
+     */
+    TranspositionTable getTable() {
+        if (table == null && tableSize > 0) {
+            TableAllocationEvent event = new TableAllocationEvent();
+            event.begin();
+            table = new TranspositionTable(tableSize * (1L << 20));
+
+            if (event.shouldCommit()) {
+                event.size = getSize();
+                event.cap = tableSize * (1L << 20);
+                event.bytes = table.getBytes();
+                event.commit();
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Sets the transposition table of the game, so a table can be cleared
+     * and reused by a later game instead of allocating a new one.
+     *
+     * @param table The table or {@code null} to create a new one when it is
+     *              used.
+     */
+    void setTable(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Sets the pool on which the machine searches its possible moves in
+     * parallel. Every worker searches on its own copy of the board and the
+     * machine chooses the same move as without a pool.
+     *
+     * @param pool The pool or {@code null} to search on the calling thread.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the way the machine uses the threads of its pool.
+     *
+     * @param parallelMode The parallel mode.
+     */
+    public void setParallelMode(ParallelMode parallelMode) {
+        this.parallelMode = parallelMode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Get a move of the next player from the opening book.
+     *
+     * @return The packed move or {@link PackedMove#NONE} if there is no book
+     *         of the size of this board or it has no move of this position.
+     */
+    int getBookMove() {
+        if (book == null || book.getSize() != getSize()) {
+            return PackedMove.NONE;
+        }
+        BookProbeEvent event = new BookProbeEvent();
+        event.begin();
+        int move = book.probe(getHash());
+        int cell = PackedMove.getSlot(move);
+
+        // A move of another position with the same hash is not possible here.
+        if (move == PackedMove.NONE
+                || cell >= Topology.get(getSize()).getCells()
+                || getPackedMove(cell, PackedMove.getDirection(move)) != move) {
+            move = PackedMove.NONE;
+        }
+
+        if (event.shouldCommit()) {
+            event.size = getSize();
+            event.key = getHash();
+            event.hit = move != PackedMove.NONE;
+            event.move = PackedMove.toString(move, getSize());
+            event.commit();
+        }
+        return move;
+    }
+
+    /**
+     * Commit the flight recorder event of a machine move of this board if
+     * the event is enabled.
+     *
+     * @param event The begun event.
+     * @param level The difficulty level of the machine.
+     * @param timeLimit The time limit in milliseconds or 0 if the level is
+     *                  used.
+     * @param token The token which cancels the search or {@code null}.
+     * @param move The packed move of the machine.
+     * @param next The board after the move.
+     */
+    void commitMachineMove(MachineMoveEvent event, int level, long timeLimit,
+                           CancellationToken token, int move,
+                           SearchBoard next) {
+        if (event.shouldCommit()) {
+            event.size = getSize();
+            event.level = level;
+            event.timeLimit = timeLimit;
+            event.nodes = next.statistics.getNodes();
+            event.depth = next.statistics.getDepth();
+            event.bookMove = next.statistics.isBookMove();
+            event.cancelled = token != null && token.isCancelled();
+            event.move = PackedMove.toString(move, getSize());
+            event.commit();
+        }
+    }
+
+    /**
+     * Create a search with the table, the pool and the parallel mode of this
+     * board.
+     *
+     * @param depth The maximum height of the searched positions.
+     * @param mode The algorithm used to score the positions.
+     * @return The search.
+     */
+    Search createSearch(int depth, SearchMode mode) {
+        return new Search(depth, mode, getTable(), pool, parallelMode);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isValidPosition(int row, int diag) {
+        return getTopology().isValid(row, diag);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isValidTarget(int row, int diag) {
+        return getTopology().isValidTarget(row, diag);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        Topology topology = getTopology();
+        int size = getSize();
+        StringBuilder sb = new StringBuilder();
+
+        for (int row = size - 1; row >= 0; row--) {
+            int indentation = Math.abs(row - size / 2);
+            int spaceCounter = 0;
+
+            // Add indentation in front.
+            for (int i = 0; i < indentation; i++) {
+                sb.append(' ');
+            }
+
+            // Append the content of the row.
+            for (int diag = topology.getFirstDiag(row);
+                 diag <= topology.getLastDiag(row); diag++) {
+                sb.append(getSlot(row, diag));
+
+                // Only append a space if there are following slots.
+                if (++spaceCounter < size - indentation) {
+                    sb.append(' ');
+                }
+            }
+
+            // Only append a newline if there are following rows.
+            if (row > 0) {
+                sb.append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Get the layout of the slots of the board size.
+     *
+     * @return The topology.
+     */
+    abstract Topology getTopology();
+
+    /**
+     * Get a deep copy of the board on which moves can be made independently.
+     *
+     * @return A deep copy of the board.
+     */
+    abstract SearchBoard copy();
+
+    /**
+     * Executes a move of the next player on a copy of the board like a move
+     * of the game. Unlike {@link #makeMove(int)} on a {@link #copy()}, the
+     * copy keeps the order of the balls of the machine, which decides
+     * between equally scored moves.
+     *
+     * @param move The packed move. It is not checked.
+     * @return A copy of the board with the executed move.
+     */
+    abstract SearchBoard executeMove(int move);
+
+    /**
+     * Get the Zobrist key of the position which covers the balls and the next
+     * player.
+     *
+     * @return The key.
+     */
+    abstract long getHash();
+
+    /**
+     * Get the score of the board from the machine's point of view without
+     * looking at any following moves.
+     *
+     * @param height The height of the board in the game tree.
+     * @return The score.
+     */
+    abstract double getScore(int height);
+
+    /**
+     * Get the number of moves an array must be able to hold to receive the
+     * possible moves of a player. Every ball can be moved into six directions
+     * and each slot holds at most one ball.
+     *
+     * @return The capacity.
+     */
+    int getMoveCapacity() {
+        return PackedMove.DIRECTIONS * getSize() * getSize();
+    }
+
+    /**
+     * Write the packed possible moves of all balls of the given player into
+     * the given array. At the start of a search the moves of the machine are
+     * in the order of its balls, which decides between equally scored moves.
+     *
+     * @param player The player to move.
+     * @param moves The array which receives the moves. It must be able to
+     *              hold {@link #getMoveCapacity()} moves.
+     * @return The number of possible moves.
+     */
+    abstract int getPossibleMoves(Player player, int[] moves);
+
+    /**
+     * Get the packed move of the ball of the next player in the given cell
+     * into the given direction without generating the other moves.
+     *
+     * @param cell The cell of the ball.
+     * @param dir The direction of the move.
+     * @return The packed move or {@link PackedMove#NONE} if the cell holds
+     *         no ball of the next player or the move is not possible.
+     */
+    abstract int getPackedMove(int cell, int dir);
+
+    /**
+     * Get the cell of a ball of the given player by its index among the
+     * balls of the player in the order of their cells.
+     *
+     * @param player The owner of the ball.
+     * @param index The index of the ball.
+     * @return The cell or {@link Topology#OFF_BOARD} if the player has fewer
+     *         balls.
+     */
+    abstract int getCell(Player player, int index);
+
+    /**
+     * Executes a valid packed move in place and sets the next player.
+     *
+     * @param move The packed move to execute.
+     */
+    abstract void makeMove(int move);
+
+    /**
+     * Undoes the last move made by {@link #makeMove(int)}. Pushed out balls
+     * and the next player are restored.
+     */
+    abstract void unmakeMove();
+}
@@ -0,0 +1,49 @@
+package abalone.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The flight recorder event of the search of a machine move with all of its
+ * iterations.
+ */
+@Name("abalone.Search")
+@Label("Search")
+@Category("Abalone")
+@Description("The search of the best move of the machine")
+@StackTrace(false)
+final class SearchEvent extends Event {
+    /**
+     * The size of the board.
+     */
+    @Label("Board Size")
+    int size;
+
+    /**
+     * The maximum depth of the search.
+     */
+    @Label("Maximum Depth")
+    int maxDepth;
+
+    /**
+     * The depth of the deepest completed iteration.
+     */
+    @Label("Depth")
+    int depth;
+
+    /**
+     * The number of positions visited by all threads of the search.
+     */
+    @Label("Nodes")
+    long nodes;
+
+    /**
+     * The chosen move.
+     */
+    @Label("Move")
+    String move;
+}
@@ -0,0 +1,50 @@
+package abalone.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The flight recorder event of one iteration of an iteratively deepening
+ * search.
+ */
+@Name("abalone.SearchIteration")
+@Label("Search Iteration")
+@Category("Abalone")
+@Description("An iteration of the iteratively deepening search")
+@StackTrace(false)
+final class SearchIterationEvent extends Event {
+    /**
+     * The size of the board.
+     */
+    @Label("Board Size")
+    int size;
+
+    /**
+     * The depth of the iteration.
+     */
+    @Label("Depth")
+    int depth;
+
+    /**
+     * The number of positions visited by the iteration on the searching
+     * thread and its root workers.
+     */
+    @Label("Nodes")
+    long nodes;
+
+    /**
+     * If the iteration was completed and not abandoned.
+     */
+    @Label("Completed")
+    boolean completed;
+
+    /**
+     * The best move of the iteration or {@code null} if it was abandoned.
+     */
+    @Label("Move")
+    String move;
+}
@@ -0,0 +1,17 @@
+package abalone.model;
+
+/**
+ * The algorithm the machine uses to score its game tree.
+ */
+public enum SearchMode {
+    /**
+     * Score every position of the game tree with the Minimax algorithm.
+     */
+    MINIMAX,
+
+    /**
+     * Minimax with alpha-beta pruning, which skips the positions that cannot
+     * change the chosen move.
+     */
+    ALPHA_BETA
+}
@@ -0,0 +1,206 @@
+package abalone.model;
+
+/**
+ * The statistics of the search of a machine move. The counters are plain
+ * fields of every searching thread which are added up when the threads have
+ * finished, so they cost nothing but an increment per position.
+ */
+public final class SearchStatistics {
+    /**
+     * The statistics of a move which was taken from the opening book.
+     */
+    static final SearchStatistics BOOK_MOVE
+            = new SearchStatistics(0, 0, 0, 0, 0, 0, 0, 0, true);
+
+    /**
+     * The number of positions visited by the search.
+     */
+    private final long nodes;
+
+    /**
+     * The time the search took in nanoseconds.
+     */
+    private final long time;
+
+    /**
+     * The depth of the deepest completed search.
+     */
+    private final int depth;
+
+    /**
+     * The number of positions which have been scored. Positions whose score
+     * is taken from the transposition table are not scored.
+     */
+    private final long evaluations;
+
+    /**
+     * The number of positions whose remaining moves were cut off.
+     */
+    private final long cutoffs;
+
+    /**
+     * The number of lookups in the transposition table.
+     */
+    private final long tableProbes;
+
+    /**
+     * The number of lookups which found their position.
+     */
+    private final long tableHits;
+
+    /**
+     * The peak heap usage of the JVM sampled during the search in bytes.
+     */
+    private final long peakMemory;
+
+    /**
+     * If the move was taken from the opening book.
+     */
+    private final boolean bookMove;
+
+    /**
+     * Creates the statistics of a search.
+     *
+     * @param nodes The number of positions visited by the search.
+     * @param time The time the search took in nanoseconds.
+     * @param depth The depth of the deepest completed search.
+     * @param evaluations The number of positions which have been scored.
+     * @param cutoffs The number of positions whose remaining moves were cut
+     *                off.
+     * @param tableProbes The number of lookups in the transposition table.
+     * @param tableHits The number of lookups which found their position.
+     * @param peakMemory The peak heap usage of the JVM in bytes.
+     * @param bookMove If the move was taken from the opening book.
+     */
+    SearchStatistics(long nodes, long time, int depth, long evaluations,
+                     long cutoffs, long tableProbes, long tableHits,
+                     long peakMemory, boolean bookMove) {
+        this.nodes = nodes;
+        this.time = time;
+        this.depth = depth;
+        this.evaluations = evaluations;
+        this.cutoffs = cutoffs;
+        this.tableProbes = tableProbes;
+        this.tableHits = tableHits;
+        this.peakMemory = peakMemory;
+        this.bookMove = bookMove;
+    }
+
+    /**
+     * Get whether the move was taken from the opening book without a search.
+     *
+     * @return {@code true} iff the move was taken from the book.
+     */
+    public boolean isBookMove() {
+        return bookMove;
+    }
+
+    /**
+     * Get the number of positions visited by the search.
+     *
+     * @return The number of positions.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Get the time the search took.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Get the number of positions visited per second.
+     *
+     * @return The number of positions per second or 0 if no time was
+     *         measured.
+     */
+    public double getNodesPerSecond() {
+        return time > 0 ? nodes * 1e9 / time : 0;
+    }
+
+    /**
+     * Get the depth of the deepest completed search.
+     *
+     * @return The depth.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get the effective branching factor, the number of children per
+     * position of a uniform tree of the depth with as many positions as the
+     * search visited.
+     *
+     * @return The effective branching factor or 0 if nothing was searched.
+     */
+    public double getBranchingFactor() {
+        return depth > 0 && nodes > 0 ? Math.pow(nodes, 1.0 / depth) : 0;
+    }
+
+    /**
+     * Get the number of positions which have been scored. A position whose
+     * score is taken from the transposition table is visited without being
+     * scored, so there are fewer evaluations than positions.
+     *
+     * @return The number of evaluations.
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Get the number of positions whose remaining moves were cut off by
+     * alpha-beta pruning.
+     *
+     * @return The number of cutoffs.
+     */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * Get the number of lookups in the transposition table.
+     *
+     * @return The number of lookups.
+     */
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+    /**
+     * Get the number of lookups in the transposition table which found their
+     * position.
+     *
+     * @return The number of hits.
+     */
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    /**
+     * Get the share of the lookups in the transposition table which found
+     * their position.
+     *
+     * @return The hit rate between 0 and 1 or 0 if the table was not used.
+     */
+    public double getTableHitRate() {
+        return tableProbes > 0 ? (double) tableHits / tableProbes : 0;
+    }
+
+    /**
+     * Get the peak heap usage of the JVM during the search. The usage is
+     * sampled whenever the search checks its clock and includes the other
+     * threads of the JVM.
+     *
+     * @return The peak heap usage in bytes.
+     */
+    public long getPeakMemory() {
+        return peakMemory;
+    }
+}
@@ -0,0 +1,543 @@
+package abalone.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless tournament of two machine players A and B. The games are played
+ * in parallel on a pool of threads and the result of every game is printed
+ * as soon as it is over, followed by the statistics of all games.
+ *
+ * <p>
+ * The machine of a board always plays against the human. Every game is
+ * therefore played on two boards: one on which A is the machine and one on
+ * which B is the machine. The second board is the first one rotated by 180
+ * degrees, which swaps the start positions of the players. A move of a
+ * machine is made on its own board and repeated as a move of the human on the
+ * other board.
+ *
+ * <p>
+ * Usage: {@code java abalone.model.SelfPlay [options]}. The options are
+ * <ul>
+ * <li>{@code -n <games>}: the number of games, 100 by default.
+ * <li>{@code -j <threads>}: the number of games played at the same time,
+ * the number of processors by default.
+ * <li>{@code -b <board>}: the board type, "abalone" (default) or
+ * "bitboard".
+ * <li>{@code -s <size>}: the board size, 9 by default.
+ * <li>{@code -o <player>}: the player who opens the games, "a", "b" or
+ * "alternate" (default).
+ * <li>{@code -la <level>}, {@code -lb <level>}: the level of A and B, 2 by
+ * default.
+ * <li>{@code -ta <millis>}, {@code -tb <millis>}: the time limit of every
+ * move of A and B which replaces the level.
+ * <li>{@code -r <moves>}: the number of random moves at the start of every
+ * game, 2 by default, so the games differ.
+ * <li>{@code -c <moves>}: the number of moves after which a game is a draw,
+ * 500 by default, since the game may never end.
+ * <li>{@code -seed <seed>}: the seed of the random moves.
+ * <li>{@code -w <file>}: append the games to a game record file. A game is
+ * recorded as seen from A, who is the machine, against B, who is the human.
+ * </ul>
+ */
+public final class SelfPlay {
+    /**
+     * The result of a game which ended without a winner.
+     */
+    private static final int DRAW = -1;
+
+    /**
+     * The index of player A and the result of a game which A has won.
+     */
+    private static final int A = 0;
+
+    /**
+     * The index of player B and the result of a game which B has won.
+     */
+    private static final int B = 1;
+
+    /**
+     * The number of games.
+     */
+    private int games = 100;
+
+    /**
+     * The number of games played at the same time.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The board type of the games.
+     */
+    private BoardType type = BoardType.ABALONE;
+
+    /**
+     * The size of the boards.
+     */
+    private int size = 9;
+
+    /**
+     * The player who opens the games or -1 if they take turns.
+     */
+    private int opener = -1;
+
+    /**
+     * The levels of A and B.
+     */
+    private final int[] levels = {2, 2};
+
+    /**
+     * The time limits of a move of A and B in milliseconds or 0 if the level
+     * is used.
+     */
+    private final long[] timeLimits = new long[2];
+
+    /**
+     * The number of random moves at the start of a game.
+     */
+    private int randomMoves = 2;
+
+    /**
+     * The number of moves after which a game is a draw.
+     */
+    private int moveCap = 500;
+
+    /**
+     * The seed of the random moves.
+     */
+    private long seed = 1;
+
+    /**
+     * The file the games are appended to or {@code null}.
+     */
+    private Path recordFile;
+
+    /**
+     * The writer of the games or {@code null}.
+     */
+    private GameRecordWriter writer;
+
+    /**
+     * The transposition tables of A and B of every thread, which are cleared
+     * and reused by the next game of the thread.
+     */
+    private final ThreadLocal<TranspositionTable[]> tables
+            = ThreadLocal.withInitial(() -> new TranspositionTable[2]);
+
+    /**
+     * Cannot instantiate the tournament outside of this class.
+     */
+    private SelfPlay() {
+    }
+
+    /**
+     * Main method of the tournament.
+     *
+     * @param args The options of the tournament.
+     */
+    public static void main(String[] args) {
+        SelfPlay tournament = new SelfPlay();
+
+        try {
+            tournament.parse(args);
+        } catch (IllegalArgumentException
+                | ArrayIndexOutOfBoundsException ex) {
+            System.out.println("Error! Invalid arguments. " + ex.getMessage());
+            return;
+        }
+        tournament.play();
+    }
+
+    /**
+     * Parse the options of the tournament.
+     *
+     * @param args The options.
+     * @throws IllegalArgumentException If an option is not valid.
+     */
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-n":
+                    games = Integer.parseInt(args[++i]);
+                    break;
+                case "-j":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-b":
+                    type = BoardType.valueOf(args[++i].toUpperCase());
+                    break;
+                case "-s":
+                    size = Integer.parseInt(args[++i]);
+                    break;
+                case "-o":
+                    String player = args[++i];
+
+                    if (player.equals("a")) {
+                        opener = A;
+                    } else if (player.equals("b")) {
+                        opener = B;
+                    } else if (player.equals("alternate")) {
+                        opener = -1;
+                    } else {
+                        throw new IllegalArgumentException("Unknown player: "
+                                + player);
+                    }
+                    break;
+                case "-la":
+                    levels[A] = Integer.parseInt(args[++i]);
+                    break;
+                case "-lb":
+                    levels[B] = Integer.parseInt(args[++i]);
+                    break;
+                case "-ta":
+                    timeLimits[A] = Long.parseLong(args[++i]);
+                    break;
+                case "-tb":
+                    timeLimits[B] = Long.parseLong(args[++i]);
+                    break;
+                case "-r":
+                    randomMoves = Integer.parseInt(args[++i]);
+                    break;
+                case "-c":
+                    moveCap = Integer.parseInt(args[++i]);
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "-w":
+                    recordFile = Paths.get(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: "
+                            + args[i]);
+            }
+        }
+
+        if (games < 1 || threads < 1 || levels[A] < 1
+                || levels[B] < 1 || timeLimits[A] < 0
+                || timeLimits[B] < 0 || randomMoves < 0
+                || moveCap < 1) {
+            throw new IllegalArgumentException("Numbers must be positive.");
+        }
+    }
+
+    /**
+     * Play all games and print their results and the statistics.
+     */
+    private void play() {
+        if (recordFile != null) {
+            try {
+                writer = new GameRecordWriter(recordFile);
+            } catch (IOException ex) {
+                System.out.println("Error! Cannot open the record file: "
+                        + ex.getMessage());
+                return;
+            }
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<GameResult> results
+                = new ExecutorCompletionService<>(pool);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < games; i++) {
+            int game = i;
+            results.submit(() -> playGame(game));
+        }
+        int[] wins = new int[2];
+        int openerWins = 0;
+        int draws = 0;
+        long totalMoves = 0;
+        int minMoves = Integer.MAX_VALUE;
+        int maxMoves = 0;
+
+        try {
+            for (int i = 0; i < games; i++) {
+                GameResult result = results.take().get();
+                System.out.println(result);
+                totalMoves += result.moves;
+                minMoves = Math.min(minMoves, result.moves);
+                maxMoves = Math.max(maxMoves, result.moves);
+
+                if (result.winner == DRAW) {
+                    draws++;
+                } else {
+                    wins[result.winner]++;
+
+                    if (result.winner == result.opener) {
+                        openerWins++;
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            pool.shutdownNow();
+            closeWriter();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format(Locale.ROOT,
+                "games %d: A %d (%.1f%%), B %d (%.1f%%), draws %d (%.1f%%), "
+                        + "opener %d (%.1f%%)", games, wins[A],
+                100.0 * wins[A] / games, wins[B],
+                100.0 * wins[B] / games, draws, 100.0 * draws / games,
+                openerWins, 100.0 * openerWins / games));
+        System.out.println(String.format(Locale.ROOT,
+                "moves: average %.1f, min %d, max %d", (double) totalMoves
+                        / games, minMoves, maxMoves));
+        System.out.println(String.format(Locale.ROOT,
+                "time %.1f s, %.2f games/s", seconds, games / seconds));
+    }
+
+    /**
+     * Play a game.
+     *
+     * @param game The number of the game.
+     * @return The result of the game.
+     */
+    private GameResult playGame(int game) {
+        long start = System.nanoTime();
+        Random random = new Random(seed + game);
+        int gameOpener = opener >= 0 ? opener : game % 2;
+
+        // On the board of a player the player is the machine.
+        SearchBoard[] boards = new SearchBoard[2];
+        TranspositionTable[] sideTables = tables.get();
+
+        for (int side = A; side <= B; side++) {
+            Player openingPlayer = side == gameOpener ? Player.MACHINE
+                    : Player.HUMAN;
+            boards[side] = (SearchBoard) type.create(size, openingPlayer,
+                    levels[side]);
+
+            // The cleared table of the last game is as good as a new one.
+            if (sideTables[side] == null) {
+                sideTables[side] = boards[side].getTable();
+            } else {
+                sideTables[side].clear();
+                boards[side].setTable(sideTables[side]);
+            }
+        }
+        List<Move> record = new ArrayList<>();
+        int moves = 0;
+
+        while (moves < moveCap && !boards[A].isGameOver()) {
+            int side = boards[A].getNextPlayer() == Player.MACHINE
+                    ? A : B;
+            SearchBoard board = boards[side];
+            int move;
+
+            if (moves < randomMoves) {
+                move = getRandomMove(board, random);
+                boards[side] = board.executeMove(move);
+            } else {
+                boards[side] = (SearchBoard) (timeLimits[side] > 0
+                        ? board.machineMove(timeLimits[side])
+                        : board.machineMove());
+                move = findMove(board, boards[side].getHash());
+            }
+            Move coordinates = Topology.get(size).toMove(move);
+            record.add(side == A ? coordinates : rotate(coordinates));
+            boards[1 - side] = repeatMove(boards[1 - side], board,
+                    coordinates);
+            moves++;
+        }
+        int winner = DRAW;
+
+        if (boards[A].isGameOver()) {
+            winner = boards[A].getWinner() == Player.MACHINE ? A
+                    : B;
+        }
+
+        if (writer != null) {
+            writeRecord(gameOpener, boards[A], record);
+        }
+        return new GameResult(game, gameOpener, winner, moves,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Get a random move of the machine.
+     *
+     * @param board The board on which the machine moves next.
+     * @param random The source of the random move.
+     * @return The packed move.
+     */
+    private static int getRandomMove(SearchBoard board, Random random) {
+        int[] moves = new int[board.getMoveCapacity()];
+        int count = board.getPossibleMoves(Player.MACHINE, moves);
+        return moves[random.nextInt(count)];
+    }
+
+    /**
+     * Find the move of the machine which leads to the position with the given
+     * hash.
+     *
+     * @param board The board before the move of the machine.
+     * @param hash The hash of the board after the move.
+     * @return The packed move.
+     * @throws IllegalStateException If no move leads to the position.
+     */
+    private static int findMove(SearchBoard board, long hash) {
+        int[] moves = new int[board.getMoveCapacity()];
+        int count = board.getPossibleMoves(Player.MACHINE, moves);
+
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            long moveHash = board.getHash();
+            board.unmakeMove();
+
+            if (moveHash == hash) {
+                return moves[i];
+            }
+        }
+        throw new IllegalStateException("The move of the machine is unknown!");
+    }
+
+    /**
+     * Repeat a move of the machine of one board as a move of the human on the
+     * board of the other player, which is rotated by 180 degrees.
+     *
+     * @param board The board of the other player.
+     * @param moved The board on which the machine has moved before the move.
+     * @param move The packed move of the machine.
+     * @return The board of the other player after the move.
+     * @throws IllegalStateException If the move is not valid on the board.
+     */
+    private SearchBoard repeatMove(SearchBoard board, SearchBoard moved,
+                                   Move move) {
+        Move rotated = rotate(move);
+        Board next = board.move(rotated.getRowFrom(), rotated.getDiagFrom(),
+                rotated.getRowTo(), rotated.getDiagTo());
+
+        if (next == null) {
+            throw new IllegalStateException("Invalid move " + move
+                    + " on the rotated board:\n" + moved);
+        }
+        return (SearchBoard) next;
+    }
+
+    /**
+     * Get the move with the coordinates of the board rotated by 180 degrees.
+     *
+     * @param move The move.
+     * @return The rotated move.
+     */
+    private Move rotate(Move move) {
+        int last = size - 1;
+        return new Move(last - move.getRowFrom(), last - move.getDiagFrom(),
+                last - move.getRowTo(), last - move.getDiagTo());
+    }
+
+    /**
+     * Append a game to the record file as seen from A.
+     *
+     * @param gameOpener The player who opened the game.
+     * @param board The board of A after the last move.
+     * @param moves The moves of the game with the coordinates of the board of
+     *              A.
+     * @throws UncheckedIOException If the game cannot be written.
+     */
+    private void writeRecord(int gameOpener, SearchBoard board,
+                             List<Move> moves) {
+        Player openingPlayer = gameOpener == A ? Player.MACHINE
+                : Player.HUMAN;
+        Player winner = board.isGameOver() ? board.getWinner() : null;
+
+        try {
+            writer.write(new GameRecord(size, openingPlayer, levels[B],
+                    levels[A], winner, moves));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Close the writer of the games if there is one.
+     */
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                System.out.println("Error! Cannot write the record file: "
+                        + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The result of a game.
+     */
+    private static final class GameResult {
+        /**
+         * The number of the game.
+         */
+        private final int game;
+
+        /**
+         * The player who opened the game.
+         */
+        private final int opener;
+
+        /**
+         * The winner of the game or {@link #DRAW}.
+         */
+        private final int winner;
+
+        /**
+         * The number of moves of the game.
+         */
+        private final int moves;
+
+        /**
+         * The duration of the game in seconds.
+         */
+        private final double seconds;
+
+        /**
+         * Creates a new result.
+         *
+         * @param game The number of the game.
+         * @param opener The player who opened the game.
+         * @param winner The winner of the game or {@link #DRAW}.
+         * @param moves The number of moves of the game.
+         * @param seconds The duration of the game in seconds.
+         */
+        private GameResult(int game, int opener, int winner, int moves,
+                           double seconds) {
+            this.game = game;
+            this.opener = opener;
+            this.winner = winner;
+            this.moves = moves;
+            this.seconds = seconds;
+        }
+
+        /**
+         * Get the result as a line of text.
+         *
+         * @return The string representation of the result.
+         */
+        @Override
+        public String toString() {
+            String result = winner == DRAW ? "draw"
+                    : (winner == A ? "A" : "B") + " wins";
+            return String.format(Locale.ROOT,
+                    "game %d: %s opens, %s after %d moves in %.2f s", game,
+                    opener == A ? "A" : "B", result, moves, seconds);
+        }
+    }
+}
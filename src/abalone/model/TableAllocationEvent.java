@@ -0,0 +1,41 @@
+package abalone.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The flight recorder event of the allocation of a transposition table,
+ * which happens for the first search of a game and after its size has been
+ * changed.
+ */
+@Name("abalone.TableAllocation")
+@Label("Transposition Table Allocation")
+@Category("Abalone")
+@Description("A transposition table was allocated with a new size")
+@StackTrace(false)
+final class TableAllocationEvent extends Event {
+    /**
+     * The size of the board.
+     */
+    @Label("Board Size")
+    int size;
+
+    /**
+     * The memory cap of the table.
+     */
+    @Label("Memory Cap")
+    @DataAmount
+    long cap;
+
+    /**
+     * The memory of the entries of the table.
+     */
+    @Label("Size")
+    @DataAmount
+    long bytes;
+}
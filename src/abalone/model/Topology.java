@@ -0,0 +1,305 @@
+package abalone.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The layout of the slots of a board size. The valid slots of the hexagon are
+ * numbered row by row into cell indices starting at the lowest row. For every
+ * cell and direction the topology holds the neighbour, so a line of balls is
+ * walked along its ray to the edge with table lookups instead of checking the
+ * coordinates at every step.
+ *
+ * <p>
+ * A topology is computed once for every board size and shared by all boards
+ * and search threads. It is immutable, so the arrays it returns must not be
+ * modified.
+ */
+final class Topology {
+    /**
+     * The neighbour of a cell whose next slot lies off the board.
+     */
+    static final int OFF_BOARD = -1;
+
+    /**
+     * The valid move vectors a ball has got. The index of a vector is the
+     * direction of the neighbour table.
+     */
+    private static final int[][] VALID_MOVE_VECTORS
+            = {{0, 1}, {1, 1}, {1, 0}, {0, -1}, {-1, -1}, {-1, 0}};
+
+    /**
+     * The topologies of the board sizes which have been used so far.
+     */
+    private static final Map<Integer, Topology> TOPOLOGIES
+            = new ConcurrentHashMap<>();
+
+    /**
+     * The size of the board.
+     */
+    private final int size;
+
+    /**
+     * The number of valid slots.
+     */
+    private final int cells;
+
+    /**
+     * The offset of each row, so the cell of a valid slot is the sum of the
+     * offset of its row and its diagonal.
+     */
+    private final int[] rowOffsets;
+
+    /**
+     * The row of each cell.
+     */
+    private final int[] rows;
+
+    /**
+     * The diagonal of each cell.
+     */
+    private final int[] diags;
+
+    /**
+     * The neighbour of each cell in each direction at index
+     * {@code cell * 6 + direction} or {@link #OFF_BOARD}.
+     */
+    private final int[] neighbours;
+
+    /**
+     * The distance of each cell to the edge.
+     */
+    private final int[] distances;
+
+    /**
+     * The Zobrist key of each cell and owner at index
+     * {@code cell * 2 + owner}.
+     */
+    private final long[] keys;
+
+    /**
+     * Compute the topology of the given board size.
+     *
+     * @param size The size of the board.
+     */
+    private Topology(int size) {
+        this.size = size;
+        rowOffsets = new int[size];
+        int cell = 0;
+
+        // The cells of a row follow the cells of the rows below.
+        for (int row = 0; row < size; row++) {
+            rowOffsets[row] = cell - getFirstDiag(row);
+            cell += getLastDiag(row) - getFirstDiag(row) + 1;
+        }
+        cells = cell;
+        rows = new int[cells];
+        diags = new int[cells];
+
+        for (int row = 0; row < size; row++) {
+            for (int diag = getFirstDiag(row); diag <= getLastDiag(row);
+                 diag++) {
+                rows[getCell(row, diag)] = row;
+                diags[getCell(row, diag)] = diag;
+            }
+        }
+        neighbours = new int[cells * PackedMove.DIRECTIONS];
+        distances = new int[cells];
+        keys = new long[cells * 2];
+        long[] sizeKeys = Zobrist.getKeys(size);
+
+        for (cell = 0; cell < cells; cell++) {
+            int row = rows[cell];
+            int diag = diags[cell];
+            distances[cell] = Integer.MAX_VALUE;
+
+            for (Player owner : Player.values()) {
+                keys[cell * 2 + owner.ordinal()] = sizeKeys[
+                        Zobrist.getIndex(size, row, diag, owner)];
+            }
+
+            for (int dir = 0; dir < PackedMove.DIRECTIONS; dir++) {
+                int rowDiff = VALID_MOVE_VECTORS[dir][0];
+                int diagDiff = VALID_MOVE_VECTORS[dir][1];
+                int ray = 0;
+                neighbours[cell * PackedMove.DIRECTIONS + dir]
+                        = isValid(row + rowDiff, diag + diagDiff)
+                        ? getCell(row + rowDiff, diag + diagDiff) : OFF_BOARD;
+
+                // Count the slots between the cell and the edge.
+                while (isValid(row + (ray + 1) * rowDiff,
+                        diag + (ray + 1) * diagDiff)) {
+                    ray++;
+                }
+
+                // The edge is closest in the direction of the shortest ray.
+                distances[cell] = Math.min(distances[cell], ray);
+            }
+        }
+    }
+
+    /**
+     * Get the topology of the given board size and compute it if it is used
+     * for the first time.
+     *
+     * @param size The size of the board.
+     * @return The topology.
+     */
+    static Topology get(int size) {
+        return TOPOLOGIES.computeIfAbsent(size, Topology::new);
+    }
+
+    /**
+     * Get the size of the board.
+     *
+     * @return The size.
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the number of valid slots.
+     *
+     * @return The number of cells.
+     */
+    int getCells() {
+        return cells;
+    }
+
+    /**
+     * Checks if the provided coordinates are a valid slot.
+     *
+     * @param row The row.
+     * @param diag The diagonal.
+     * @return {@code true} iff the coordinates are valid.
+     */
+    boolean isValid(int row, int diag) {
+        return 0 <= row && row < size && getFirstDiag(row) <= diag
+                && diag <= getLastDiag(row);
+    }
+
+    /**
+     * Checks if the provided coordinates are a valid slot or a slot at most
+     * one slot outside of the board, to which a ball can be pushed.
+     *
+     * @param row The row.
+     * @param diag The diagonal.
+     * @return {@code true} iff the coordinates are a valid target.
+     */
+    boolean isValidTarget(int row, int diag) {
+        boolean isValidRow = -1 <= row && row <= size;
+        boolean isValidDiag = getFirstDiag(row) - 1 <= diag
+                && diag <= getLastDiag(row) + 1;
+        return isValidRow && isValidDiag;
+    }
+
+    /**
+     * Get the direction of the given move vector.
+     *
+     * @param rowDiff The difference of the rows.
+     * @param diagDiff The difference of the diagonals.
+     * @return The direction of the vector or -1 if the vector is not a valid
+     *         move vector.
+     */
+    static int getDirection(int rowDiff, int diagDiff) {
+        for (int dir = 0; dir < PackedMove.DIRECTIONS; dir++) {
+            if (VALID_MOVE_VECTORS[dir][0] == rowDiff
+                    && VALID_MOVE_VECTORS[dir][1] == diagDiff) {
+                return dir;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the cell of a valid slot.
+     *
+     * @param row The row.
+     * @param diag The diagonal.
+     * @return The cell.
+     */
+    int getCell(int row, int diag) {
+        return rowOffsets[row] + diag;
+    }
+
+    /**
+     * Get the rows of all cells.
+     *
+     * @return The row of each cell.
+     */
+    int[] getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the diagonals of all cells.
+     *
+     * @return The diagonal of each cell.
+     */
+    int[] getDiags() {
+        return diags;
+    }
+
+    /**
+     * Get the neighbour table.
+     *
+     * @return The neighbour of each cell in each direction at index
+     *         {@code cell * 6 + direction} or {@link #OFF_BOARD}.
+     */
+    int[] getNeighbours() {
+        return neighbours;
+    }
+
+    /**
+     * Get the distances of the cells to the edge.
+     *
+     * @return The distance of each cell.
+     */
+    int[] getDistances() {
+        return distances;
+    }
+
+    /**
+     * Get the Zobrist keys of the cells.
+     *
+     * @return The key of each cell and owner at index
+     *         {@code cell * 2 + owner}.
+     */
+    long[] getKeys() {
+        return keys;
+    }
+
+    /**
+     * Get the move with the coordinates of a packed move.
+     *
+     * @param move The packed move.
+     * @return The move.
+     */
+    Move toMove(int move) {
+        int cell = PackedMove.getSlot(move);
+        int[] vector = VALID_MOVE_VECTORS[PackedMove.getDirection(move)];
+        return new Move(rows[cell], diags[cell], rows[cell] + vector[0],
+                diags[cell] + vector[1]);
+    }
+
+    /**
+     * Get the first valid diagonal index for the given row.
+     *
+     * @param row The row.
+     * @return The first diagonal index.
+     */
+    int getFirstDiag(int row) {
+        return Math.max(0, row - size / 2);
+    }
+
+    /**
+     * Get the last valid diagonal index for the given row.
+     *
+     * @param row The row.
+     * @return The last diagonal index.
+     */
+    int getLastDiag(int row) {
+        return Math.min(row + size / 2, size - 1);
+    }
+}
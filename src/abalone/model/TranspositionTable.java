@@ -0,0 +1,275 @@
+package abalone.model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size hash table of already scored positions. Every entry stores the
+ * key, the remaining depth, the score, the type of the score and the best
+ * move of a position.
+ *
+ * <p>
+ * The entries are grouped in buckets of four. A new position replaces the
+ * entry of the same key or otherwise the entry with the lowest value, where
+ * entries of an older search are worth less than all entries of the current
+ * search and deeper entries are worth more than shallower ones.
+ *
+ * <p>
+ * A score which was derived from the score of a deeper entry is stored as
+ * approximate, since every position adds its own score and scores of other
+ * depths differ. Only the helpers of a Lazy SMP search use such scores.
+ *
+ * <p>
+ * The table is shared by parallel searches without locks. The key of an
+ * entry is stored XORed with its data, so an entry which is torn by
+ * concurrent stores does not match its key anymore and is treated as
+ * missing.
+ */
+final class TranspositionTable {
+    /**
+     * The score is the exact minimax score.
+     */
+    static final int EXACT = 0;
+
+    /**
+     * The score is a lower bound of the minimax score.
+     */
+    static final int LOWER = 1;
+
+    /**
+     * The score is an upper bound of the minimax score.
+     */
+    static final int UPPER = 2;
+
+    /**
+     * The bit of the info which marks an approximate score.
+     */
+    private static final long APPROXIMATE = 1L << 47;
+
+    /**
+     * The number of entries of a bucket.
+     */
+    private static final int BUCKET = 4;
+
+    /**
+     * The number of longs of an entry: checked key, score and the packed info.
+     */
+    private static final int ENTRY = 3;
+
+    /**
+     * The number of bytes of an entry.
+     */
+    static final int ENTRY_BYTES = ENTRY * Long.BYTES;
+
+    /**
+     * The entries stored as key XOR score bits XOR info, score bits and info,
+     * where the info is the best move in the lower 32 bits followed by the
+     * depth, the type and the age with 8 bits each. The highest bit of the
+     * type marks an approximate score.
+     */
+    private final AtomicLongArray entries;
+
+    /**
+     * The mask which selects a bucket of a key.
+     */
+    private final int bucketMask;
+
+    /**
+     * The age of the current search.
+     */
+    private volatile int age;
+
+    /**
+     * Creates a new table with at most the given size.
+     *
+     * @param bytes The maximum number of bytes of the entries. The table holds
+     *              at least one bucket.
+     */
+    TranspositionTable(long bytes) {
+        long buckets = Math.max(1, bytes / (BUCKET * ENTRY_BYTES));
+
+        // The number of buckets is a power of two to select them by masking.
+        int count = Integer.highestOneBit(
+                (int) Math.min(buckets, 1 << 24));
+        entries = new AtomicLongArray(count * BUCKET * ENTRY);
+        bucketMask = count - 1;
+    }
+
+    /**
+     * Get the memory of the entries.
+     *
+     * @return The number of bytes of the entries.
+     */
+    long getBytes() {
+        return (long) entries.length() * Long.BYTES;
+    }
+
+    /**
+     * Start a new search. Entries of earlier searches stay valid but get
+     * replaced first.
+     */
+    void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.lazySet(i, 0);
+        }
+    }
+
+    /**
+     * Find the entry of a key and copy its data.
+     *
+     * @param key The key of the position.
+     * @param entry The array of length 2 which receives the score bits and the
+     *              info of the entry.
+     * @return {@code true} iff the position is stored.
+     */
+    boolean probe(long key, long[] entry) {
+        int bucket = getBucket(key);
+
+        for (int i = bucket; i < bucket + BUCKET * ENTRY; i += ENTRY) {
+            long checkedKey = entries.get(i);
+            long score = entries.get(i + 1);
+            long info = entries.get(i + 2);
+
+            if (info != 0 && (checkedKey ^ score ^ info) == key) {
+                entry[0] = score;
+                entry[1] = info;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the score of a probed entry.
+     *
+     * @param entry The data of the entry.
+     * @return The score.
+     */
+    static double getScore(long[] entry) {
+        return Double.longBitsToDouble(entry[0]);
+    }
+
+    /**
+     * Get the best move of a probed entry.
+     *
+     * @param entry The data of the entry.
+     * @return The packed best move.
+     */
+    static int getMove(long[] entry) {
+        return (int) entry[1];
+    }
+
+    /**
+     * Get the remaining depth below the position of a probed entry.
+     *
+     * @param entry The data of the entry.
+     * @return The depth.
+     */
+    static int getDepth(long[] entry) {
+        return getDepth(entry[1]);
+    }
+
+    /**
+     * Get the type of the score of a probed entry.
+     *
+     * @param entry The data of the entry.
+     * @return {@link #EXACT}, {@link #LOWER} or {@link #UPPER}.
+     */
+    static int getType(long[] entry) {
+        return (int) (entry[1] >>> 40) & 0x7F;
+    }
+
+    /**
+     * Get whether the score of a probed entry was derived from the score of
+     * a deeper entry.
+     *
+     * @param entry The data of the entry.
+     * @return {@code true} iff the score is approximate.
+     */
+    static boolean isApproximate(long[] entry) {
+        return (entry[1] & APPROXIMATE) != 0;
+    }
+
+    /**
+     * Store the score of a position.
+     *
+     * @param key The key of the position.
+     * @param depth The remaining depth below the position, at least 1.
+     * @param score The score.
+     * @param type The type of the score.
+     * @param move The packed best move.
+     * @param approximate If the score was derived from the score of a deeper
+     *                    entry.
+     */
+    void store(long key, int depth, double score, int type, int move,
+               boolean approximate) {
+        int bucket = getBucket(key);
+        int currentAge = age;
+        int victim = bucket;
+        int victimValue = Integer.MAX_VALUE;
+
+        for (int i = bucket; i < bucket + BUCKET * ENTRY; i += ENTRY) {
+            long info = entries.get(i + 2);
+
+            if ((entries.get(i) ^ entries.get(i + 1) ^ info) == key) {
+                victim = i;
+                break;
+            }
+            int value = getValue(info, currentAge);
+
+            if (value < victimValue) {
+                victim = i;
+                victimValue = value;
+            }
+        }
+        long scoreBits = Double.doubleToLongBits(score);
+        long info = (move & 0xFFFFFFFFL)
+                | (long) Math.min(depth, 0xFF) << 32 | (long) type << 40
+                | (long) currentAge << 48 | (approximate ? APPROXIMATE : 0);
+        entries.lazySet(victim, key ^ scoreBits ^ info);
+        entries.lazySet(victim + 1, scoreBits);
+        entries.lazySet(victim + 2, info);
+    }
+
+    /**
+     * Get the value of keeping an entry. Empty entries have no value and
+     * entries of older searches are worth less than the current ones.
+     *
+     * @param info The info of the entry.
+     * @param currentAge The age of the current search.
+     * @return The value.
+     */
+    private static int getValue(long info, int currentAge) {
+        if (info == 0) {
+            return -1;
+        }
+        boolean isCurrent = (int) (info >>> 48) == currentAge;
+        return (isCurrent ? 0x100 : 0) + getDepth(info);
+    }
+
+    /**
+     * Get the remaining depth of the info of an entry.
+     *
+     * @param info The info.
+     * @return The depth.
+     */
+    private static int getDepth(long info) {
+        return (int) (info >>> 32) & 0xFF;
+    }
+
+    /**
+     * Get the index of the first entry of the bucket of a key.
+     *
+     * @param key The key.
+     * @return The index.
+     */
+    private int getBucket(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET * ENTRY;
+    }
+}
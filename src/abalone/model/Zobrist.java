@@ -0,0 +1,92 @@
+package abalone.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Random keys for Zobrist hashing of abalone positions. The key of a position
+ * is the XOR of the keys of its balls, so a board can update it incrementally
+ * whenever a ball moves. The keys are derived from the board size and the
+ * slot, so every board of the same size uses the same keys.
+ */
+final class Zobrist {
+    /**
+     * The key which is added if the human moves next.
+     */
+    static final long HUMAN_TO_MOVE = mix(-1);
+
+    /**
+     * The keys of the board sizes which have been used so far.
+     */
+    private static final Map<Integer, long[]> KEYS = new ConcurrentHashMap<>();
+
+    /**
+     * Cannot instantiate utility class.
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Get the keys of all slots of the given board size. The key of a ball
+     * is at the index returned by {@link #getIndex(int, int, int, Player)}.
+     *
+     * @param size The size of the board.
+     * @return The keys which must not be modified.
+     */
+    static long[] getKeys(int size) {
+        return KEYS.computeIfAbsent(size, Zobrist::createKeys);
+    }
+
+    /**
+     * Get the index of the key of a ball.
+     *
+     * @param size The size of the board.
+     * @param row The row of the ball.
+     * @param diag The diagonal of the ball.
+     * @param owner The owner of the ball.
+     * @return The index in the keys of the board size.
+     */
+    static int getIndex(int size, int row, int diag, Player owner) {
+        return (row * size + diag) * 2 + owner.ordinal();
+    }
+
+    /**
+     * Get the key which is added to a position at the given height of the
+     * game tree. The score of a position depends on its height, so the
+     * same position at different heights must not share table entries.
+     *
+     * @param height The height in the game tree.
+     * @return The key of the height.
+     */
+    static long getHeightKey(int height) {
+        return mix(-2 - height);
+    }
+
+    /**
+     * Create the keys of a board size.
+     *
+     * @param size The size of the board.
+     * @return The keys of all slots.
+     */
+    private static long[] createKeys(int size) {
+        long[] keys = new long[size * size * 2];
+
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = mix((long) size << 32 | i);
+        }
+        return keys;
+    }
+
+    /**
+     * Mix the bits of a value into a pseudo random key (SplitMix64).
+     *
+     * @param value The value.
+     * @return The key.
+     */
+    private static long mix(long value) {
+        long z = value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}